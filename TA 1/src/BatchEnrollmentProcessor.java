@@ -0,0 +1,79 @@
+// Batch enrollment for the FP model
+// Groups all requests by course in one pass, then fills each course in parallel.
+// Rejections come back in request order, whichever course produced them
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+record EnrollmentRequest(StudentRecord student, String courseId) {}
+record EnrollmentRejection(EnrollmentRequest request, String reason) {}
+record BatchEnrollmentResult(List<CourseRecord> courses, List<EnrollmentRejection> rejections) {}
+
+class BatchEnrollmentProcessor {
+    public static final String UNKNOWN_COURSE = "unknown course";
+    public static final String COURSE_FULL = "course full";
+    public static final String ALREADY_ENROLLED = "already enrolled";
+
+    public BatchEnrollmentResult processEnrollments(List<CourseRecord> courses, List<EnrollmentRequest> requests) {
+        Map<String, List<Integer>> requestsByCourse = new HashMap<>(courses.size() * 4 / 3 + 1);
+        for (CourseRecord course : courses) {
+            requestsByCourse.put(course.courseId(), new ArrayList<>());
+        }
+
+        // Single pass over the requests, keeping their arrival order per course. Each rejection is
+        // written to its request's slot, so reading the slots back in order restores request order
+        EnrollmentRejection[] rejected = new EnrollmentRejection[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            EnrollmentRequest request = requests.get(i);
+            List<Integer> bucket = requestsByCourse.get(request.courseId());
+            if (bucket == null) {
+                rejected[i] = new EnrollmentRejection(request, UNKNOWN_COURSE);
+            } else {
+                bucket.add(i);
+            }
+        }
+
+        // Courses are independent, so each one is filled on the fork-join pool. Every course
+        // writes only the slots of its own requests
+        List<CourseRecord> updatedCourses = courses.parallelStream()
+                .map(course -> applyRequests(course, requestsByCourse.get(course.courseId()), requests, rejected))
+                .collect(Collectors.toList());
+
+        List<EnrollmentRejection> rejections = new ArrayList<>();
+        for (EnrollmentRejection rejection : rejected) {
+            if (rejection != null) {
+                rejections.add(rejection);
+            }
+        }
+        return new BatchEnrollmentResult(updatedCourses, rejections);
+    }
+
+    private static CourseRecord applyRequests(CourseRecord course, List<Integer> indexes,
+                                              List<EnrollmentRequest> requests, EnrollmentRejection[] rejected) {
+        if (indexes.isEmpty()) {
+            return course;
+        }
+
+        // The roster answers membership itself, so no side set is needed for duplicates
+        PersistentRoster enrolled = PersistentRoster.from(course.enrolledStudentIds());
+
+        for (int index : indexes) {
+            EnrollmentRequest request = requests.get(index);
+            StudentRecord student = request.student();
+            if (enrolled.contains(student.id()) || student.enrolledCourseIds().contains(course.courseId())) {
+                rejected[index] = new EnrollmentRejection(request, ALREADY_ENROLLED);
+            } else if (enrolled.size() >= course.maxCapacity()) {
+                rejected[index] = new EnrollmentRejection(request, COURSE_FULL);
+            } else {
+                enrolled = enrolled.append(student.id());
+            }
+        }
+
+        // Build the new record once per course instead of once per student
+        return enrolled.size() == course.enrolledStudentIds().size() ? course :
+                new CourseRecord(course.courseId(), course.name(), course.professorId(), enrolled, course.maxCapacity());
+    }
+}
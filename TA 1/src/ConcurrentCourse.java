@@ -0,0 +1,86 @@
+// Concurrent enrollment mode
+// Seats are claimed with a CAS on a per-course counter instead of check-then-act on an ArrayList
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConcurrentCourse extends Course {
+    private final AtomicInteger seatsTaken = new AtomicInteger();
+    private final Set<Student> roster = ConcurrentHashMap.newKeySet();
+
+    public ConcurrentCourse(String courseId, String name, int maxCapacity) {
+        super(courseId, name, maxCapacity);
+    }
+
+    @Override
+    public boolean hasAvailableSeats() {
+        return seatsTaken.get() < getMaxCapacity();
+    }
+
+    // Only the thread that wins the CAS for a seat may add to the roster.
+    // A student who is already enrolled hands the seat straight back.
+    @Override
+    public boolean addStudent(Student student) {
+        return tryClaimSeat() && fillClaimedSeat(student);
+    }
+
+    // Turns a seat already claimed with tryClaimSeat into an enrollment.
+    // If the student is already enrolled the seat is given back
+    public boolean fillClaimedSeat(Student student) {
+        if (!roster.add(student)) {
+            releaseSeat();
+            return false;
+        }
+        notifyStudentAdded(student);
+        return true;
+    }
+
+    public boolean tryClaimSeat() {
+        while (true) {
+            int taken = seatsTaken.get();
+            if (taken >= getMaxCapacity()) {
+                return false;
+            }
+            if (seatsTaken.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Gives back a seat claimed with tryClaimSeat that was never used
+    public void releaseSeat() {
+        seatsTaken.decrementAndGet();
+    }
+
+    // Gives back several unused claims at once, e.g. a batch of expired seat holds
+    public void releaseSeats(int count) {
+        seatsTaken.addAndGet(-count);
+    }
+
+    @Override
+    public boolean removeStudent(Student student) {
+        if (roster.remove(student)) {
+            seatsTaken.decrementAndGet();
+            notifyStudentRemoved(student);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isEnrolled(Student student) {
+        return roster.contains(student);
+    }
+
+    public int getSeatsTaken() {
+        return seatsTaken.get();
+    }
+
+    // Returns a snapshot, the live roster is never exposed to callers
+    @Override
+    public List<Student> getEnrolledStudents() {
+        return new ArrayList<>(roster);
+    }
+}
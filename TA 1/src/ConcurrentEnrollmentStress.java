@@ -0,0 +1,86 @@
+// Multi-threaded stress run for ConcurrentCourse
+// Many threads race for the same seats, then we check nothing was overbooked
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentEnrollmentStress {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int attemptsPerThread = 50_000;
+        int capacity = threads * attemptsPerThread / 2; // half the attempts must be rejected
+
+        ConcurrentCourse course = new ConcurrentCourse("CS101", "Java Programming", capacity);
+        // No validators, the seat claim is what we are testing
+        EnrollmentSystem system = new EnrollmentSystem(List.of());
+
+        List<List<Student>> studentsPerThread = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Student> students = new ArrayList<>(attemptsPerThread);
+            for (int i = 0; i < attemptsPerThread; i++) {
+                String id = "S" + t + "-" + i;
+                students.add(new Student(id, "Student " + id, id + "@university.edu", "Computer Science"));
+            }
+            studentsPerThread.add(students);
+        }
+
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (List<Student> students : studentsPerThread) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (Student student : students) {
+                    if (system.enrollStudent(student, course)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        int attempts = threads * attemptsPerThread;
+        List<Student> roster = course.getEnrolledStudents();
+        System.out.println("Threads: " + threads + ", attempts: " + attempts + ", capacity: " + capacity);
+        System.out.println("Accepted: " + accepted.get() + ", roster size: " + roster.size()
+                + ", seats taken: " + course.getSeatsTaken());
+        System.out.printf("Throughput: %.0f enrollments/sec on one course%n", attempts / seconds);
+
+        check(accepted.get() == capacity, "accepted count must equal capacity");
+        check(roster.size() == capacity, "roster size must equal capacity");
+        check(course.getSeatsTaken() == capacity, "seat counter must equal capacity");
+        check(new HashSet<>(roster).size() == roster.size(), "roster must not contain duplicates");
+        check(attempts / seconds >= 10_000, "throughput must be at least 10k enrollments/sec");
+
+        // Every accepted student must see the course on their own side too
+        long studentsWithCourse = studentsPerThread.stream()
+                .flatMap(List::stream)
+                .filter(s -> !s.getEnrolledCourses().isEmpty())
+                .count();
+        check(studentsWithCourse == capacity, "student side must match the roster");
+
+        System.out.println("No overbooking detected");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Stress check failed: " + message);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+// Inverted-index catalog search
+// Course ids, names and professor names are tokenized into a sorted term dictionary whose posting
+// lists are sorted int arrays, one int per (term, course). Token and prefix queries are answered
+// from the postings and ranked into a top-k heap, and CourseListener events keep the index current.
+// Searches share a read lock and each thread has its own scratch, so only index updates serialize
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+record CatalogHit(Course course, double score) {}
+
+class CourseCatalogIndex implements CourseListener {
+    // Field bits stored in the low bits of each posting; matches in the id rank above the name,
+    // and the name above the professor
+    private static final int ID = 1;
+    private static final int NAME = 2;
+    private static final int PROFESSOR = 4;
+    private static final int FIELD_BITS = 3;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern LETTER_DIGIT_BOUNDARY = Pattern.compile("(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    // A one-token prefix query expands to at most this many terms and scores at most this many of
+    // their postings, so "d" costs the same at any catalog size. Past the cap, the hits come from
+    // the first terms in dictionary order and the earliest-tracked courses under them
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MAX_PREFIX_POSTINGS = 2048;
+
+    // Lower score first; on equal scores the larger course id is the weaker hit
+    private static final Comparator<CatalogHit> WEAKEST_FIRST = (a, b) -> {
+        int byScore = Double.compare(a.score(), b.score());
+        return byScore != 0 ? byScore : b.course().getCourseId().compareTo(a.course().getCourseId());
+    };
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Course, Integer> docIds = new IdentityHashMap<>();
+    private final List<Course> docs = new ArrayList<>();
+    // The terms each course was indexed under, so an update removes exactly those postings
+    private final List<Map<String, Integer>> docTerms = new ArrayList<>();
+    private int liveDocs;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public void trackAll(Collection<? extends Course> catalog) {
+        catalog.forEach(this::track);
+    }
+
+    // Indexes every course the professor teaches
+    public void trackProfessor(Professor professor) {
+        trackAll(professor.getTaughtCourses());
+    }
+
+    public void track(Course course) {
+        lock.writeLock().lock();
+        try {
+            if (docIds.containsKey(course)) {
+                return;
+            }
+            int doc = docs.size();
+            docIds.put(course, doc);
+            docs.add(course);
+            docTerms.add(Map.of());
+            liveDocs++;
+            reindex(doc);
+            course.addListener(this);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void untrack(Course course) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.remove(course);
+            if (doc != null) {
+                course.removeListener(this);
+                unindex(doc);
+                docs.set(doc, null);
+                liveDocs--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onNameChanged(Course course, String previous, String current) {
+        reindex(course);
+    }
+
+    @Override
+    public void onCourseIdChanged(Course course, String previous, String current) {
+        reindex(course);
+    }
+
+    @Override
+    public void onProfessorAssigned(Course course, Professor previous, Professor current) {
+        reindex(course);
+    }
+
+    // Person has no listeners, so call this after renaming a professor
+    public void refreshProfessor(Professor professor) {
+        for (Course course : professor.getTaughtCourses()) {
+            reindex(course);
+        }
+    }
+
+    // Every query token must match. All but the last must match a whole term; the last one also
+    // matches as a prefix, so results follow the user while they type
+    public List<CatalogHit> search(String query, int k) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Scratch s = scratch.get();
+            s.ensureCapacity(docs.size());
+            s.touchedCount = 0;
+            for (int t = 0; t < tokens.size(); t++) {
+                boolean last = t == tokens.size() - 1;
+                String token = tokens.get(t);
+                // The exact term goes first, so a document matched both ways scores as exact
+                Postings exact = terms.get(token);
+                if (exact != null) {
+                    collect(s, exact, t, 2.0, exact.size);
+                }
+                if (last) {
+                    expandPrefix(s, token, t);
+                }
+            }
+
+            // Bounded min-heap keeps the k best, weakest on top
+            PriorityQueue<CatalogHit> best = new PriorityQueue<>(k + 1, WEAKEST_FIRST);
+            for (int i = 0; i < s.touchedCount; i++) {
+                int doc = s.touched[i];
+                // Most candidates lose to the current k-th hit before a hit is allocated
+                if (s.matchedTokens[doc] == tokens.size() && (best.size() < k || beats(s, doc, best.peek()))) {
+                    best.add(new CatalogHit(docs.get(doc), s.scores[doc]));
+                    if (best.size() > k) {
+                        best.poll();
+                    }
+                }
+                s.matchedTokens[doc] = 0;
+                s.scores[doc] = 0;
+            }
+            List<CatalogHit> ranked = new ArrayList<>(best);
+            ranked.sort(WEAKEST_FIRST.reversed());
+            return ranked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean beats(Scratch s, int doc, CatalogHit kth) {
+        return s.scores[doc] > kth.score()
+                || s.scores[doc] == kth.score() && docs.get(doc).getCourseId().compareTo(kth.course().getCourseId()) < 0;
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int courseCount() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // After the first token only documents that already matched can gain, so the walk is exact.
+    // A one-token query has no candidates yet and every posting under the prefix is one, so there
+    // the caps bound how many of them are read
+    private void expandPrefix(Scratch s, String token, int t) {
+        int termsLeft = t == 0 ? MAX_PREFIX_TERMS : Integer.MAX_VALUE;
+        int postingsLeft = t == 0 ? MAX_PREFIX_POSTINGS : Integer.MAX_VALUE;
+        for (Postings postings : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+            if (termsLeft-- == 0 || postingsLeft == 0) {
+                break;
+            }
+            int limit = Math.min(postings.size, postingsLeft);
+            collect(s, postings, t, 1.0, limit);
+            postingsLeft -= limit;
+        }
+    }
+
+    // A document counts for token t only if it matched tokens 0..t-1, and only once per token.
+    // Reads the first limit postings
+    private void collect(Scratch s, Postings postings, int token, double exactness, int limit) {
+        double idf = idf(postings);
+        for (int i = 0; i < limit; i++) {
+            int doc = postings.entries[i] >>> FIELD_BITS;
+            if (s.matchedTokens[doc] != token) {
+                continue;
+            }
+            if (token == 0) {
+                s.touched[s.touchedCount++] = doc;
+            }
+            s.matchedTokens[doc] = token + 1;
+            s.scores[doc] += exactness * idf * fieldWeight(postings.entries[i] & ((1 << FIELD_BITS) - 1));
+        }
+    }
+
+    private double idf(Postings postings) {
+        return Math.log(1.0 + (double) liveDocs / postings.size);
+    }
+
+    private static double fieldWeight(int fields) {
+        return (fields & ID) != 0 ? 3 : (fields & NAME) != 0 ? 2 : 1;
+    }
+
+    private void reindex(Course course) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docIds.get(course);
+            if (doc != null) {
+                reindex(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reindex(int doc) {
+        unindex(doc);
+        Course course = docs.get(doc);
+        Map<String, Integer> fields = new LinkedHashMap<>();
+        addTokens(fields, course.getCourseId(), ID);
+        addTokens(fields, course.getName(), NAME);
+        if (course.getProfessor() != null) {
+            addTokens(fields, course.getProfessor().getName(), PROFESSOR);
+        }
+        fields.forEach((term, mask) -> terms.computeIfAbsent(term, t -> new Postings()).add((doc << FIELD_BITS) | mask));
+        docTerms.set(doc, fields);
+    }
+
+    private void unindex(int doc) {
+        docTerms.get(doc).forEach((term, mask) -> {
+            Postings postings = terms.get(term);
+            if (postings != null && postings.remove((doc << FIELD_BITS) | mask) && postings.size == 0) {
+                terms.remove(term);
+            }
+        });
+        docTerms.set(doc, Map.of());
+    }
+
+    // "CS101" is indexed as "cs101", "cs" and "101", so both the whole id and its parts match
+    private static void addTokens(Map<String, Integer> fields, String text, int field) {
+        if (text == null) {
+            return;
+        }
+        for (String token : tokenize(text)) {
+            fields.merge(token, field, (a, b) -> a | b);
+            String[] parts = LETTER_DIGIT_BOUNDARY.split(token);
+            if (parts.length > 1) {
+                for (String part : parts) {
+                    fields.merge(part, field, (a, b) -> a | b);
+                }
+            }
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(text.toLowerCase())) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // One query's working state, sized to the doc count and reset only where a query touched it
+    private static final class Scratch {
+        private int[] matchedTokens = new int[0];
+        private double[] scores = new double[0];
+        private int[] touched = new int[0];
+        private int touchedCount;
+
+        void ensureCapacity(int docCount) {
+            if (matchedTokens.length < docCount) {
+                int capacity = Math.max(16, docCount * 2);
+                matchedTokens = Arrays.copyOf(matchedTokens, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                touched = new int[capacity];
+            }
+        }
+    }
+
+    // Sorted int array of (doc << FIELD_BITS | fields); doc ids only grow, so appends are the
+    // common case and stay sorted without a search
+    private static final class Postings {
+        private int[] entries = new int[2];
+        private int size;
+
+        void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            int at = size == 0 || entries[size - 1] < entry ? size : insertionPoint(entry);
+            System.arraycopy(entries, at, entries, at + 1, size - at);
+            entries[at] = entry;
+            size++;
+        }
+
+        boolean remove(int entry) {
+            int at = Arrays.binarySearch(entries, 0, size, entry);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(entries, at + 1, entries, at, size - at - 1);
+            size--;
+            if (size > 0 && size < entries.length / 4) {
+                entries = Arrays.copyOf(entries, entries.length / 2);
+            }
+            return true;
+        }
+
+        private int insertionPoint(int entry) {
+            int at = Arrays.binarySearch(entries, 0, size, entry);
+            return at < 0 ? -at - 1 : at;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+// Concurrent holder for immutable CourseRecord state
+// Each course lives in its own atomic cell; updates run the pure EnrollmentService functions on
+// the current record and publish the result with compare-and-set, retrying with backoff on conflict
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+enum CasUpdateStatus {
+    APPLIED, REJECTED, RETRIES_EXHAUSTED, UNKNOWN_COURSE
+}
+
+// The record the update saw last: the new one when applied, otherwise the one it gave up on
+record CasUpdateResult(CasUpdateStatus status, CourseRecord course, int attempts) {
+    public boolean applied() {
+        return status == CasUpdateStatus.APPLIED;
+    }
+}
+
+record CasContentionStats(long updates, long applied, long rejected, long retriesExhausted, long casFailures) {
+    public double failuresPerUpdate() {
+        return updates == 0 ? 0 : (double) casFailures / updates;
+    }
+}
+
+class CourseRecordStore {
+    private static final int SPIN_ATTEMPTS = 4;
+
+    private final Map<String, Cell> cells = new ConcurrentHashMap<>();
+    private final int maxAttempts;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retriesExhausted = new LongAdder();
+
+    public CourseRecordStore() {
+        this(32, 1_000, 1_000_000);
+    }
+
+    public CourseRecordStore(int maxAttempts, long baseBackoffNanos, long maxBackoffNanos) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffNanos = baseBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+    }
+
+    public static CourseRecordStore of(Collection<CourseRecord> courses) {
+        CourseRecordStore store = new CourseRecordStore();
+        courses.forEach(store::put);
+        return store;
+    }
+
+    public void put(CourseRecord course) {
+        cells.put(course.courseId(), new Cell(course));
+    }
+
+    public Optional<CourseRecord> get(String courseId) {
+        Cell cell = cells.get(courseId);
+        return cell == null ? Optional.empty() : Optional.of(cell.record.get());
+    }
+
+    // Duplicates are checked against the record itself, not a side index, so the check and the
+    // published roster can never disagree
+    public CasUpdateResult enroll(String courseId, StudentRecord student) {
+        return update(courseId, course -> EnrollmentService.enrollStudent(course, student));
+    }
+
+    // The change must be a pure function of the record it is given: it may run several times,
+    // and only the run whose input is still current when it finishes gets published.
+    // An empty result means the change does not apply, and the record is left alone
+    public CasUpdateResult update(String courseId, Function<CourseRecord, Optional<CourseRecord>> change) {
+        Cell cell = cells.get(courseId);
+        if (cell == null) {
+            return new CasUpdateResult(CasUpdateStatus.UNKNOWN_COURSE, null, 0);
+        }
+        updates.increment();
+        CourseRecord current = cell.record.get();
+        for (int attempt = 1; ; attempt++) {
+            Optional<CourseRecord> next = change.apply(current);
+            if (next.isEmpty()) {
+                rejected.increment();
+                return new CasUpdateResult(CasUpdateStatus.REJECTED, current, attempt);
+            }
+            if (cell.record.compareAndSet(current, next.get())) {
+                applied.increment();
+                return new CasUpdateResult(CasUpdateStatus.APPLIED, next.get(), attempt);
+            }
+            cell.casFailures.increment();
+            if (attempt == maxAttempts) {
+                retriesExhausted.increment();
+                return new CasUpdateResult(CasUpdateStatus.RETRIES_EXHAUSTED, current, attempt);
+            }
+            backoff(attempt);
+            current = cell.record.get();
+        }
+    }
+
+    public List<CourseRecord> snapshot() {
+        List<CourseRecord> courses = new ArrayList<>(cells.size());
+        cells.values().forEach(cell -> courses.add(cell.record.get()));
+        return courses;
+    }
+
+    public CasContentionStats stats() {
+        long failures = cells.values().stream().mapToLong(cell -> cell.casFailures.sum()).sum();
+        return new CasContentionStats(updates.sum(), applied.sum(), rejected.sum(), retriesExhausted.sum(), failures);
+    }
+
+    // Courses with the most failed compare-and-sets, i.e. where writers collide the most
+    public List<Map.Entry<String, Long>> hottestCourses(int limit) {
+        return cells.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().casFailures.sum()))
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .toList();
+    }
+
+    // Spin briefly first, since the winner usually finishes within a few hundred nanoseconds;
+    // after that park for an exponentially growing, jittered time so losers stop colliding
+    private void backoff(int attempt) {
+        if (attempt <= SPIN_ATTEMPTS) {
+            for (int i = 0; i < 1 << attempt; i++) {
+                Thread.onSpinWait();
+            }
+            return;
+        }
+        long ceiling = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt - SPIN_ATTEMPTS, 30));
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+    }
+
+    private static final class Cell {
+        private final AtomicReference<CourseRecord> record;
+        private final LongAdder casFailures = new LongAdder();
+
+        Cell(CourseRecord course) {
+            this.record = new AtomicReference<>(course);
+        }
+    }
+}
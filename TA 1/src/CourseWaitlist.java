@@ -0,0 +1,209 @@
+// Concurrent per-course waitlist
+// Full courses queue students by priority class, then arrival order,
+// and a freed seat is handed to the head of the queue
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+enum WaitlistStatus {
+    ENROLLED, WAITLISTED, ALREADY_ENROLLED, ALREADY_WAITLISTED
+}
+
+// Lower priority class is served first; the ticket breaks ties in arrival order.
+// The state decides races between leaving and promotion: whoever moves it off WAITING first wins
+final class WaitlistEntry implements Comparable<WaitlistEntry> {
+    private static final int WAITING = 0;
+    private static final int PROMOTING = 1;
+    private static final int CANCELLED = 2;
+    private static final int DONE = 3;
+
+    private final Student student;
+    private final int priorityClass;
+    private final long ticket;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    WaitlistEntry(Student student, int priorityClass, long ticket) {
+        this.student = student;
+        this.priorityClass = priorityClass;
+        this.ticket = ticket;
+    }
+
+    public Student student() {
+        return student;
+    }
+
+    public int priorityClass() {
+        return priorityClass;
+    }
+
+    public long ticket() {
+        return ticket;
+    }
+
+    boolean cancel() {
+        return state.compareAndSet(WAITING, CANCELLED);
+    }
+
+    boolean claim() {
+        return state.compareAndSet(WAITING, PROMOTING);
+    }
+
+    void finish() {
+        state.set(DONE);
+    }
+
+    // Back to WAITING after a lost seat race; cancel cannot succeed while PROMOTING
+    void release() {
+        state.compareAndSet(PROMOTING, WAITING);
+    }
+
+    boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    boolean isDone() {
+        return state.get() == DONE;
+    }
+
+    @Override
+    public int compareTo(WaitlistEntry other) {
+        int byPriority = Integer.compare(priorityClass, other.priorityClass);
+        return byPriority != 0 ? byPriority : Long.compare(ticket, other.ticket);
+    }
+}
+
+class CourseWaitlist {
+    public static final int DEFAULT_PRIORITY = 100;
+
+    private static final AtomicLong TICKETS = new AtomicLong();
+
+    private final ConcurrentCourse course;
+    // Skip list gives O(log n) add, remove and poll of the head without a global lock
+    private final ConcurrentSkipListSet<WaitlistEntry> queue = new ConcurrentSkipListSet<>();
+    private final Map<Student, WaitlistEntry> entriesByStudent = new ConcurrentHashMap<>();
+    private final Consumer<Student> onPromoted;
+
+    public CourseWaitlist(ConcurrentCourse course) {
+        this(course, student -> { });
+    }
+
+    public CourseWaitlist(ConcurrentCourse course, Consumer<Student> onPromoted) {
+        this.course = course;
+        this.onPromoted = onPromoted;
+    }
+
+    public WaitlistStatus enrollOrWaitlist(Student student) {
+        return enrollOrWaitlist(student, DEFAULT_PRIORITY);
+    }
+
+    public WaitlistStatus enrollOrWaitlist(Student student, int priorityClass) {
+        if (course.isEnrolled(student)) {
+            return WaitlistStatus.ALREADY_ENROLLED;
+        }
+        // Nobody may jump the queue while others are already waiting
+        if (queue.isEmpty() && student.enrollInCourse(course)) {
+            return WaitlistStatus.ENROLLED;
+        }
+        WaitlistEntry entry = new WaitlistEntry(student, priorityClass, TICKETS.incrementAndGet());
+        if (entriesByStudent.putIfAbsent(student, entry) != null) {
+            return WaitlistStatus.ALREADY_WAITLISTED;
+        }
+        queue.add(entry);
+        // A seat may have been freed between the failed claim and the add
+        promote();
+        return entry.isDone() ? WaitlistStatus.ENROLLED : WaitlistStatus.WAITLISTED;
+    }
+
+    public boolean hasWaitingStudents() {
+        return !queue.isEmpty();
+    }
+
+    // True only if the student will never be promoted from this entry. False when they were not
+    // waiting or a promotion has already claimed the entry
+    public boolean leaveWaitlist(Student student) {
+        WaitlistEntry entry = entriesByStudent.get(student);
+        if (entry == null || !entry.cancel()) {
+            return false;
+        }
+        entriesByStudent.remove(student, entry);
+        queue.remove(entry);
+        return true;
+    }
+
+    // Drops the student and promotes the next waitlisted student into the freed seat
+    public boolean drop(Student student) {
+        if (!student.dropCourse(course)) {
+            return false;
+        }
+        promote();
+        return true;
+    }
+
+    // Fills free seats from the head of the queue; safe to call from any thread
+    public void promote() {
+        while (course.hasAvailableSeats()) {
+            WaitlistEntry head = queue.pollFirst();
+            if (head == null) {
+                return;
+            }
+            // A cancelled entry is skipped; leaveWaitlist already removed it from the map
+            if (!head.claim()) {
+                continue;
+            }
+            Student student = head.student();
+            if (student.enrollInCourse(course)) {
+                head.finish();
+                entriesByStudent.remove(student, head);
+                onPromoted.accept(student);
+            } else if (course.isEnrolled(student)) {
+                // Already enrolled some other way, the entry is stale
+                head.finish();
+                entriesByStudent.remove(student, head);
+            } else {
+                // Lost the seat to another thread; the entry goes back in its original place
+                // and the loop condition decides whether another seat is still free. A student
+                // who left between the release and the add is taken straight back out
+                head.release();
+                queue.add(head);
+                if (head.isCancelled()) {
+                    queue.remove(head);
+                }
+            }
+        }
+    }
+
+    public int waitlistSize() {
+        return entriesByStudent.size();
+    }
+
+    public boolean isWaitlisted(Student student) {
+        return entriesByStudent.containsKey(student);
+    }
+
+    public ConcurrentCourse getCourse() {
+        return course;
+    }
+}
+
+// Lets EnrollmentSystem honour the waitlists: a plain enrollment is refused while anyone is
+// queued for the course. A pre-check like the others, so a seat freed at the same moment may
+// still go to a direct enroll before the queue's head is promoted
+class WaitlistValidator implements EnrollmentValidator {
+    private final Map<Course, CourseWaitlist> waitlists = new IdentityHashMap<>();
+
+    public WaitlistValidator(List<CourseWaitlist> waitlists) {
+        waitlists.forEach(waitlist -> this.waitlists.put(waitlist.getCourse(), waitlist));
+    }
+
+    @Override
+    public boolean validateEnrollment(Student student, Course course) {
+        CourseWaitlist waitlist = waitlists.get(course);
+        return waitlist == null || !waitlist.hasWaitingStudents();
+    }
+}
@@ -0,0 +1,147 @@
+// Runs the enrollment cluster on one machine
+// Starts one EnrollmentClusterNode process per partition, drives enrollments through the router,
+// kills a node with SIGKILL, starts it again and checks that its partition came back intact
+//
+// Usage: EnrollmentClusterDemo [nodes] [students]
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+public class EnrollmentClusterDemo {
+    private static final int COURSES = 200;
+    private static final int CAPACITY = 100;
+
+    public static void main(String[] args) throws Exception {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int studentCount = args.length > 1 ? Integer.parseInt(args[1]) : 30_000;
+
+        Path directory = Files.createTempDirectory("enrollment-cluster");
+        Process[] nodes = new Process[nodeCount];
+        try {
+            run(directory, nodes, studentCount);
+        } finally {
+            // Nodes hold the journal files open, so they must be gone before the directory goes
+            for (Process node : nodes) {
+                if (node != null) {
+                    node.destroyForcibly().waitFor();
+                }
+            }
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void run(Path directory, Process[] nodes, int studentCount) throws Exception {
+        int nodeCount = nodes.length;
+        Path catalog = directory.resolve("catalog.snap");
+        List<CourseRecord> courses = new ArrayList<>(COURSES);
+        for (int c = 0; c < COURSES; c++) {
+            courses.add(new CourseRecord("C" + c, "Course " + c, "", List.of(), CAPACITY));
+        }
+        EnrollmentSnapshot.write(catalog, courses, List.of());
+
+        int[] ports = new int[nodeCount];
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int p = 0; p < nodeCount; p++) {
+            ports[p] = freePort();
+            nodes[p] = startNode(p, nodeCount, ports[p], catalog, directory);
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), ports[p]));
+        }
+
+        try (EnrollmentClusterRouter router = new EnrollmentClusterRouter(addresses)) {
+            long begin = System.nanoTime();
+            List<CompletableFuture<Boolean>> results = new ArrayList<>(studentCount);
+            for (int s = 0; s < studentCount; s++) {
+                results.add(router.enroll("S" + s, "C" + (s % COURSES)));
+            }
+            long accepted = results.stream().filter(CompletableFuture::join).count();
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("%d enrollments over %d nodes in %.2f s (%.0f req/s), accepted %d of %d seats%n",
+                    studentCount, nodeCount, seconds, studentCount / seconds, accepted, COURSES * CAPACITY);
+
+            int victim = 0;
+            int[] before = seats(router);
+            nodes[victim].destroyForcibly().waitFor();
+            System.out.println("Killed node " + victim + " (pid " + nodes[victim].pid() + ")");
+            try {
+                router.enroll("late", courseOn(router, victim)).join();
+                System.out.println("Unexpected: killed node still answered");
+            } catch (CompletionException e) {
+                System.out.println("Requests to partition " + victim + " fail while it is down: " + e.getCause());
+            }
+
+            nodes[victim] = startNode(victim, nodeCount, ports[victim], catalog, directory);
+            int[] after = seats(router);
+            int checked = 0;
+            int matching = 0;
+            for (int c = 0; c < COURSES; c++) {
+                if (router.partitionOf("C" + c) == victim) {
+                    checked++;
+                    matching += before[c] == after[c] ? 1 : 0;
+                }
+            }
+            System.out.printf("Partition %d rebuilt from its journal: %d of %d courses match their seat counts%n",
+                    victim, matching, checked);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static int[] seats(EnrollmentClusterRouter router) {
+        List<CompletableFuture<Integer>> counts = new ArrayList<>(COURSES);
+        for (int c = 0; c < COURSES; c++) {
+            counts.add(router.seatsTaken("C" + c));
+        }
+        return counts.stream().mapToInt(CompletableFuture::join).toArray();
+    }
+
+    private static String courseOn(EnrollmentClusterRouter router, int partition) {
+        for (int c = 0; ; c++) {
+            if (router.partitionOf("C" + c) == partition) {
+                return "C" + c;
+            }
+        }
+    }
+
+    // Same JVM and classpath as this process; returns once the node reports it is listening
+    private static Process startNode(int partition, int partitionCount, int port, Path catalog, Path directory)
+            throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "EnrollmentClusterNode", String.valueOf(partition), String.valueOf(partitionCount),
+                String.valueOf(port), catalog.toString(), directory.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line = out.readLine();
+        if (line == null || !line.startsWith("READY")) {
+            process.destroyForcibly();
+            throw new IOException("Node " + partition + " failed to start");
+        }
+        System.out.println(line);
+        return process;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+// One process of the multi-process enrollment cluster
+// Owns the courses of one partition. The catalog comes from an EnrollmentSnapshot and every
+// accepted change goes to this partition's EnrollmentJournal before it is acknowledged,
+// so a killed node is rebuilt by starting it again on the same data directory. Recovery seeds the
+// catalog rosters and replays the journal over them, whose drop tombstones also remove seeded
+// students; changes follow the JournaledEnrollmentSystem rules, so memory never keeps an unlogged one
+//
+// Usage: EnrollmentClusterNode <partition> <partitionCount> <port> <catalog snapshot> <data dir>
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class EnrollmentClusterNode implements AutoCloseable {
+    private static final int CHECKPOINT_INTERVAL = 50_000;
+
+    private final Map<String, ConcurrentCourse> courses = new ConcurrentHashMap<>();
+    private final Map<String, Student> students = new ConcurrentHashMap<>();
+    private final EnrollmentSystem system = new EnrollmentSystem(List.of(new PrerequisiteValidator()));
+    private final EnrollmentJournal journal;
+
+    EnrollmentClusterNode(int partition, int partitionCount, Path catalog, Path dataDirectory)
+            throws IOException {
+        EnrollmentSnapshot snapshot = EnrollmentSnapshot.open(catalog);
+        for (CourseRecord record : snapshot.courses()) {
+            if (ClusterProtocol.partitionOf(record.courseId(), partitionCount) == partition) {
+                ConcurrentCourse course = new ConcurrentCourse(record.courseId(), record.name(), record.maxCapacity());
+                courses.put(course.getCourseId(), course);
+                record.enrolledStudentIds().forEach(studentId -> student(studentId).enrollInCourse(course));
+            }
+        }
+        journal = EnrollmentJournal.open(dataDirectory.resolve("partition-" + partition), CHECKPOINT_INTERVAL);
+        journal.replay(new JournalReplayTarget() {
+            @Override
+            public void onEnroll(String studentId, String courseId) {
+                Course course = courses.get(courseId);
+                if (course != null) {
+                    student(studentId).enrollInCourse(course);
+                }
+            }
+
+            @Override
+            public void onDrop(String studentId, String courseId) {
+                Course course = courses.get(courseId);
+                if (course != null) {
+                    student(studentId).dropCourse(course);
+                }
+            }
+
+            @Override
+            public void onAssignProfessor(String professorId, String courseId) {
+                // Professors are not part of the cluster protocol
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        int partition = Integer.parseInt(args[0]);
+        int partitionCount = Integer.parseInt(args[1]);
+        int port = Integer.parseInt(args[2]);
+        EnrollmentClusterNode node = new EnrollmentClusterNode(partition, partitionCount, Path.of(args[3]), Path.of(args[4]));
+
+        try (ServerSocket server = new ServerSocket()) {
+            server.setReuseAddress(true);
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 128);
+            // The launcher waits for this line before sending traffic
+            System.out.println("READY partition " + partition + " port " + server.getLocalPort()
+                    + " courses " + node.courses.size());
+            System.out.flush();
+            while (true) {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> node.serve(socket), "cluster-node-connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+    }
+
+    // The course this node owns under the id, or null
+    ConcurrentCourse course(String courseId) {
+        return courses.get(courseId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    // One batch at a time per connection: journal and apply each change, sync once for the whole
+    // batch, reply. If the journal fails, the changes the batch made are undone and the connection
+    // is dropped, which fails the whole batch at the router
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            while (true) {
+                List<ClusterRequest> batch = ClusterProtocol.readBatch(in);
+                ClusterProtocol.writeResults(out, apply(batch));
+            }
+        } catch (EOFException e) {
+            // Router closed the connection
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Connection failed: " + e.getMessage());
+        }
+    }
+
+    private int[] apply(List<ClusterRequest> batch) throws IOException {
+        int[] results = new int[batch.size()];
+        List<ClusterRequest> applied = new ArrayList<>();
+        long lastSeq = -1;
+        try {
+            for (int i = 0; i < results.length; i++) {
+                ClusterRequest request = batch.get(i);
+                ConcurrentCourse course = courses.get(request.courseId());
+                if (course == null) {
+                    results[i] = ClusterProtocol.UNKNOWN_COURSE;
+                } else if (request.op() == ClusterProtocol.SEATS) {
+                    results[i] = course.getSeatsTaken();
+                } else {
+                    long seq = request.op() == ClusterProtocol.ENROLL ? enroll(student(request.studentId()), course)
+                            : request.op() == ClusterProtocol.DROP ? drop(student(request.studentId()), course) : -1;
+                    if (seq >= 0) {
+                        applied.add(request);
+                        lastSeq = seq;
+                    }
+                    results[i] = seq >= 0 ? ClusterProtocol.ACCEPTED : ClusterProtocol.REJECTED;
+                }
+            }
+            if (lastSeq >= 0) {
+                journal.sync(lastSeq);
+            }
+        } catch (IOException | RuntimeException e) {
+            undo(applied, e);
+            throw e;
+        }
+        return results;
+    }
+
+    // The seat claim decides the result, so it comes first and is given back if logging fails.
+    // The student's lock keeps a drop from logging in between the claim and its entry
+    private long enroll(Student student, ConcurrentCourse course) throws IOException {
+        synchronized (student) {
+            if (!system.enrollStudent(student, course)) {
+                return -1;
+            }
+            try {
+                return journal.append(JournalEventType.ENROLL, student.getId(), course.getCourseId());
+            } catch (IOException | RuntimeException e) {
+                student.dropCourse(course);
+                throw e;
+            }
+        }
+    }
+
+    // Logged before it is applied; the student's lock keeps the enrollment from changing in between
+    private long drop(Student student, ConcurrentCourse course) throws IOException {
+        synchronized (student) {
+            if (!student.isEnrolledIn(course)) {
+                return -1;
+            }
+            long seq = journal.append(JournalEventType.DROP, student.getId(), course.getCourseId());
+            student.dropCourse(course);
+            return seq;
+        }
+    }
+
+    // Reverts an unsynced batch newest first, with best-effort compensating entries for anything
+    // that did reach the log
+    private void undo(List<ClusterRequest> applied, Exception failure) {
+        for (int i = applied.size() - 1; i >= 0; i--) {
+            ClusterRequest request = applied.get(i);
+            Student student = student(request.studentId());
+            ConcurrentCourse course = courses.get(request.courseId());
+            boolean reverted = request.op() == ClusterProtocol.ENROLL
+                    ? student.dropCourse(course) : student.enrollInCourse(course);
+            if (reverted) {
+                try {
+                    journal.append(request.op() == ClusterProtocol.ENROLL ? JournalEventType.DROP : JournalEventType.ENROLL,
+                            request.studentId(), request.courseId());
+                } catch (IOException | RuntimeException suppressed) {
+                    failure.addSuppressed(suppressed);
+                }
+            }
+        }
+    }
+
+    // Students are known by id only; their details live with the caller
+    private Student student(String studentId) {
+        return students.computeIfAbsent(studentId, id -> new Student(id, id, id + "@university.edu", ""));
+    }
+}
@@ -0,0 +1,256 @@
+// Client side of the multi-process enrollment cluster
+// Courses are partitioned by courseId hash across EnrollmentClusterNode processes. The router
+// keeps one loopback connection per partition and ships queued requests to it in batches
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+record ClusterRequest(byte op, String courseId, String studentId) {}
+
+// Wire format, all big-endian, strings as DataOutput UTF (2-byte length + bytes):
+//   request batch   int count, then per request: byte op, UTF courseId, UTF studentId (ENROLL/DROP only)
+//   response batch  int count, then one int per request in request order
+// ENROLL/DROP answer ACCEPTED or REJECTED, SEATS answers the seats taken; UNKNOWN_COURSE for all
+final class ClusterProtocol {
+    public static final byte ENROLL = 1;
+    public static final byte DROP = 2;
+    public static final byte SEATS = 3;
+
+    public static final int ACCEPTED = 1;
+    public static final int REJECTED = 0;
+    public static final int UNKNOWN_COURSE = -1;
+
+    private ClusterProtocol() {}
+
+    // Same spreading as ShardedEnrollmentEngine.shardOf, so both split a catalog alike
+    public static int partitionOf(String courseId, int partitions) {
+        int h = courseId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), partitions);
+    }
+
+    public static void writeBatch(DataOutputStream out, List<ClusterRequest> batch) throws IOException {
+        out.writeInt(batch.size());
+        for (ClusterRequest request : batch) {
+            out.writeByte(request.op());
+            out.writeUTF(request.courseId());
+            if (request.op() != SEATS) {
+                out.writeUTF(request.studentId());
+            }
+        }
+        out.flush();
+    }
+
+    public static List<ClusterRequest> readBatch(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<ClusterRequest> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte op = in.readByte();
+            String courseId = in.readUTF();
+            batch.add(new ClusterRequest(op, courseId, op == SEATS ? null : in.readUTF()));
+        }
+        return batch;
+    }
+
+    public static void writeResults(DataOutputStream out, int[] results) throws IOException {
+        out.writeInt(results.length);
+        for (int result : results) {
+            out.writeInt(result);
+        }
+        out.flush();
+    }
+
+    public static int[] readResults(DataInputStream in, int expected) throws IOException {
+        int count = in.readInt();
+        if (count != expected) {
+            throw new IOException("Expected " + expected + " results but node sent " + count);
+        }
+        int[] results = new int[count];
+        for (int i = 0; i < count; i++) {
+            results[i] = in.readInt();
+        }
+        return results;
+    }
+}
+
+class EnrollmentClusterRouter implements AutoCloseable {
+    private static final int MAX_BATCH = 512;
+
+    private final Partition[] partitions;
+
+    public EnrollmentClusterRouter(List<InetSocketAddress> nodes) {
+        partitions = new Partition[nodes.size()];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, nodes.get(i));
+            partitions[i].thread.start();
+        }
+    }
+
+    // Futures complete once the owning node has journaled and synced the change. They fail
+    // with an IOException when the node is unreachable; the request may be retried later
+    public CompletableFuture<Boolean> enroll(String studentId, String courseId) {
+        return submit(new ClusterRequest(ClusterProtocol.ENROLL, courseId, studentId))
+                .thenApply(result -> result == ClusterProtocol.ACCEPTED);
+    }
+
+    public CompletableFuture<Boolean> drop(String studentId, String courseId) {
+        return submit(new ClusterRequest(ClusterProtocol.DROP, courseId, studentId))
+                .thenApply(result -> result == ClusterProtocol.ACCEPTED);
+    }
+
+    // Seats taken, or -1 for a course the owning node does not know
+    public CompletableFuture<Integer> seatsTaken(String courseId) {
+        return submit(new ClusterRequest(ClusterProtocol.SEATS, courseId, null));
+    }
+
+    public int partitionOf(String courseId) {
+        return ClusterProtocol.partitionOf(courseId, partitions.length);
+    }
+
+    public int partitionCount() {
+        return partitions.length;
+    }
+
+    // Later requests fail with "Router closed". Submitters still inside submit are waited for
+    // before the senders stop, so none is left queued. Sockets are closed before the join, so a
+    // sender blocked reading a reply from a hung node fails its batch instead of keeping close waiting
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.running = false;
+        }
+        for (Partition partition : partitions) {
+            while (partition.submitting.sum() > 0) {
+                Thread.onSpinWait();
+            }
+            partition.stopping = true;
+            partition.thread.interrupt();
+            partition.disconnect();
+        }
+        boolean interrupted = false;
+        for (Partition partition : partitions) {
+            while (partition.thread.isAlive()) {
+                try {
+                    partition.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The submitting count is raised before running is read and close lowers running before it
+    // reads the count, so either this call sees the router closed or close waits for it
+    private CompletableFuture<Integer> submit(ClusterRequest request) {
+        Pending pending = new Pending(request, new CompletableFuture<>());
+        Partition partition = partitions[partitionOf(request.courseId())];
+        partition.submitting.increment();
+        try {
+            if (!partition.running) {
+                pending.result().completeExceptionally(new IOException("Router closed"));
+            } else {
+                partition.queue.add(pending);
+            }
+        } finally {
+            partition.submitting.decrement();
+        }
+        return pending.result();
+    }
+
+    private record Pending(ClusterRequest request, CompletableFuture<Integer> result) {}
+
+    // One sender thread per partition: whatever queued up while the last batch was in flight
+    // becomes the next batch, so batches grow with load and a lone request is sent at once
+    private static final class Partition {
+        private final InetSocketAddress address;
+        private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        private final LongAdder submitting = new LongAdder();
+        // running stops new submits; stopping, set once no submit is in flight, stops the sender
+        private volatile boolean running = true;
+        private volatile boolean stopping;
+        private volatile Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+
+        Partition(int index, InetSocketAddress address) {
+            this.address = address;
+            this.thread = new Thread(this::run, "cluster-router-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            List<Pending> batch = new ArrayList<>(MAX_BATCH);
+            List<ClusterRequest> requests = new ArrayList<>(MAX_BATCH);
+            while (!stopping) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                batch.forEach(pending -> requests.add(pending.request()));
+                try {
+                    connect();
+                    ClusterProtocol.writeBatch(out, requests);
+                    int[] results = ClusterProtocol.readResults(in, requests.size());
+                    for (int i = 0; i < results.length; i++) {
+                        batch.get(i).result().complete(results[i]);
+                    }
+                } catch (IOException e) {
+                    // The node died or restarted: fail this batch and reconnect for the next one
+                    disconnect();
+                    batch.forEach(pending -> pending.result().completeExceptionally(e));
+                }
+                batch.clear();
+                requests.clear();
+            }
+            IOException closed = new IOException("Router closed");
+            queue.forEach(pending -> pending.result().completeExceptionally(closed));
+        }
+
+        // The socket is published under the partition's lock, so close either sees it and closes
+        // it or this sees stopping set and gives up
+        private void connect() throws IOException {
+            if (socket == null) {
+                Socket s = new Socket();
+                s.setTcpNoDelay(true);
+                s.connect(address, 1_000);
+                synchronized (this) {
+                    if (stopping) {
+                        s.close();
+                        throw new IOException("Router closed");
+                    }
+                    socket = s;
+                }
+                in = new DataInputStream(new BufferedInputStream(s.getInputStream(), 1 << 16));
+                out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), 1 << 16));
+            }
+        }
+
+        // Called by the sender thread after a failure and by close from any thread
+        private synchronized void disconnect() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // Already broken, nothing left to release
+                }
+                socket = null;
+            }
+        }
+    }
+}
@@ -69,43 +69,22 @@ public class EnrollmentDemo {
         EnrollmentProcessor processor = new EnrollmentProcessor();
         List<CourseRecord> updatedCourses = processor.processEnrollments(courses, students, enrollmentRequests);
 
+        // Index the results once so roster rendering never rescans the student list
+        EnrollmentRegistry registry = new EnrollmentRegistry(updatedCourses, students);
+
         // Print results using functional approach
         System.out.println("Java Course enrollments:");
-        updatedCourses.stream()
-                .filter(course -> course.courseId().equals("CS101"))
-                .findFirst()
-                .ifPresent(course -> {
-                    System.out.println("Total enrolled: " + course.enrolledStudentIds().size());
-                    course.enrolledStudentIds().forEach(studentId ->
-                            students.stream()
-                                    .filter(s -> s.id().equals(studentId))
-                                    .findFirst()
-                                    .ifPresent(s -> System.out.println(s.name() + " (ID: " + s.id() + ")"))
-                    );
-                });
+        System.out.print(registry.renderRoster("CS101"));
 
         System.out.println("\nPython Course enrollments:");
-        updatedCourses.stream()
-                .filter(course -> course.courseId().equals("CS102"))
-                .findFirst()
-                .ifPresent(course -> {
-                    System.out.println("Total enrolled: " + course.enrolledStudentIds().size());
-                    course.enrolledStudentIds().forEach(studentId ->
-                            students.stream()
-                                    .filter(s -> s.id().equals(studentId))
-                                    .findFirst()
-                                    .ifPresent(s -> System.out.println(s.name() + " (ID: " + s.id() + ")"))
-                    );
-                });
+        System.out.print(registry.renderRoster("CS102"));
 
         // Demonstrate function composition
         System.out.println("\nTrying to enroll one more student in Java course:");
         StudentRecord newStudent = new StudentRecord("S4", "David Lee", "david@university.edu",
                 "Computer Science", new ArrayList<>());
 
-        updatedCourses.stream()
-                .filter(course -> course.courseId().equals("CS101"))
-                .findFirst()
+        registry.findCourse("CS101")
                 .flatMap(course -> EnrollmentService.validateAndEnroll(newStudent).apply(course))
                 .ifPresentOrElse(
                         course -> System.out.println("Successfully enrolled David"),
@@ -0,0 +1,648 @@
+// Benchmark suite for the OOP and FP enrollment engines
+// Runs every engine over parameterized scenarios (course count, capacity, student count, threads)
+// with warmup and measured iterations, and reports throughput, allocation per operation and latency.
+// Allocation is read on the threads that did the work, and every result goes into a Blackhole.
+// Each engine and scenario runs in a fresh JVM, so JIT profiles and heap state from one engine
+// cannot leak into the next
+//
+// Usage: EnrollmentEngineBenchmark [--no-fork] [courses:capacity:students:threads ...]
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+public class EnrollmentEngineBenchmark {
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Contention is threads per course: many threads on few courses means hot seats
+    record Scenario(int courses, int capacity, int students, int threads) {
+        double contention() {
+            return (double) threads / courses;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("courses=%d cap=%d students=%d threads=%d", courses, capacity, students, threads);
+        }
+    }
+
+    record Result(double opsPerSecond, double opsStdDev, double bytesPerOp, long p50Nanos, long p99Nanos) {}
+
+    // One engine under test. setUp and tearDown are not timed; run submits every request once,
+    // student i asking for course i % courses, and returns the operations it completed. That is
+    // one per request, except for engines that decide fewer (fp-processor counts placements).
+    // tearDown must stop every worker thread, so their allocation is known once it returns
+    interface Engine {
+        String name();
+
+        boolean concurrent();
+
+        void setUp(Scenario scenario);
+
+        long run(LatencyHistogram latency, Blackhole sink) throws Exception;
+
+        default void tearDown() throws Exception {}
+
+        // Bytes allocated by the engine's own threads during run, valid after tearDown
+        default long workerAllocatedBytes() {
+            return 0;
+        }
+    }
+
+    // Keeps results reachable so the JIT cannot drop the work that produced them. Booleans are
+    // compared against two volatile fields that never match, which costs reads only and is safe
+    // from any thread; objects are written to a plain field, so only single-threaded engines use it
+    static final class Blackhole {
+        private volatile boolean never = false;
+        private volatile boolean always = true;
+        private Object last;
+
+        void consume(boolean value) {
+            if (value == never && value == always) {
+                throw new IllegalStateException("Blackhole fields were changed");
+            }
+        }
+
+        void consume(Object value) {
+            last = value;
+        }
+    }
+
+    // Counts allocation on the worker threads themselves: each thread reads its own counter when
+    // it starts and adds the difference when it exits, so a thread that dies mid-run still counts
+    static final class AllocationMeter {
+        private final LongAdder bytes = new LongAdder();
+        private final List<Thread> threads = new ArrayList<>();
+
+        ThreadFactory threads() {
+            return task -> register(new Thread(() -> {
+                long start = threadAllocatedBytes();
+                try {
+                    task.run();
+                } finally {
+                    bytes.add(threadAllocatedBytes() - start);
+                }
+            }));
+        }
+
+        ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinThreads() {
+            return pool -> register(new ForkJoinWorkerThread(pool) {
+                private long start;
+
+                @Override
+                protected void onStart() {
+                    super.onStart();
+                    start = threadAllocatedBytes();
+                }
+
+                @Override
+                protected void onTermination(Throwable exception) {
+                    bytes.add(threadAllocatedBytes() - start);
+                    super.onTermination(exception);
+                }
+            });
+        }
+
+        // Call once the pool is shut down; waits for every thread to report
+        long total() throws InterruptedException {
+            List<Thread> started;
+            synchronized (threads) {
+                started = new ArrayList<>(threads);
+            }
+            for (Thread thread : started) {
+                thread.join();
+            }
+            return bytes.sum();
+        }
+
+        void add(long delta) {
+            bytes.add(delta);
+        }
+
+        private <T extends Thread> T register(T thread) {
+            synchronized (threads) {
+                threads.add(thread);
+            }
+            return thread;
+        }
+    }
+
+    private static final String TRIAL = "--trial";
+    private static final String RESULT = "RESULT";
+
+    public static void main(String[] args) throws Exception {
+        // A forked trial: run one engine on one scenario and print a single result line
+        if (args.length == 3 && args[0].equals(TRIAL)) {
+            Result r = measure(engine(args[1]), scenario(args[2]));
+            System.out.println(RESULT + " " + r.opsPerSecond() + " " + r.opsStdDev() + " " + r.bytesPerOp()
+                    + " " + r.p50Nanos() + " " + r.p99Nanos());
+            return;
+        }
+
+        boolean fork = true;
+        List<Scenario> scenarios = new ArrayList<>();
+        // Optional arguments: courses:capacity:students:threads, one per scenario
+        for (String arg : args) {
+            if (arg.equals("--no-fork")) {
+                fork = false;
+            } else {
+                scenarios.add(scenario(arg));
+            }
+        }
+        if (scenarios.isEmpty()) {
+            scenarios.add(new Scenario(10, 1_000, 10_000, 1));
+            scenarios.add(new Scenario(1_000, 50, 50_000, 1));
+            scenarios.add(new Scenario(10, 1_000, 10_000, 4));
+            scenarios.add(new Scenario(1_000, 50, 50_000, 4));
+        }
+
+        List<Engine> engines = engines();
+        for (Scenario scenario : scenarios) {
+            System.out.printf("%n%s (contention %.3f threads/course)%n", scenario, scenario.contention());
+            System.out.printf("%-22s %14s %10s %12s %10s %10s%n", "engine", "ops/s", "+-", "alloc B/op", "p50 ns", "p99 ns");
+            for (Engine engine : engines) {
+                // Single-threaded engines only run in the single-threaded scenarios
+                if (!engine.concurrent() && scenario.threads() > 1) {
+                    continue;
+                }
+                Result r = fork ? forkTrial(engine, scenario) : measure(engine, scenario);
+                System.out.printf("%-22s %14.0f %10.0f %12.1f %10d %10d%n", engine.name(), r.opsPerSecond(),
+                        r.opsStdDev(), r.bytesPerOp(), r.p50Nanos(), r.p99Nanos());
+            }
+        }
+    }
+
+    private static List<Engine> engines() {
+        return List.of(new OopEngine(), new FpServiceEngine(), new FpProcessorEngine(), new FpBatchEngine(),
+                new ConcurrentOopEngine(), new FpCasEngine(), new ShardedEngine());
+    }
+
+    private static Engine engine(String name) {
+        return engines().stream().filter(e -> e.name().equals(name)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown engine " + name));
+    }
+
+    private static Scenario scenario(String arg) {
+        int[] p = Arrays.stream(arg.split(":")).mapToInt(Integer::parseInt).toArray();
+        return new Scenario(p[0], p[1], p[2], p[3]);
+    }
+
+    // Same java binary, JVM flags and classpath as this process; the child's stderr passes through
+    private static Result forkTrial(Engine engine, Scenario scenario) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), EnrollmentEngineBenchmark.class.getName(),
+                TRIAL, engine.name(), scenario.courses() + ":" + scenario.capacity() + ":" + scenario.students()
+                        + ":" + scenario.threads()));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String result = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                if (line.startsWith(RESULT + " ")) {
+                    result = line;
+                }
+            }
+        }
+        int exit = process.waitFor();
+        if (exit != 0 || result == null) {
+            throw new IOException("Trial " + engine.name() + " on " + scenario + " failed with exit code " + exit);
+        }
+        String[] f = result.split(" ");
+        return new Result(Double.parseDouble(f[1]), Double.parseDouble(f[2]), Double.parseDouble(f[3]),
+                Long.parseLong(f[4]), Long.parseLong(f[5]));
+    }
+
+    private static Result measure(Engine engine, Scenario scenario) throws Exception {
+        Blackhole sink = new Blackhole();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            engine.setUp(scenario);
+            engine.run(new LatencyHistogram(), sink);
+            engine.tearDown();
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        double[] throughput = new double[MEASURED_ITERATIONS];
+        long allocated = 0;
+        long operations = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            engine.setUp(scenario);
+            long bytesBefore = threadAllocatedBytes();
+            long begin = System.nanoTime();
+            long completed = engine.run(latency, sink);
+            long elapsed = System.nanoTime() - begin;
+            allocated += threadAllocatedBytes() - bytesBefore;
+            engine.tearDown();
+            allocated += engine.workerAllocatedBytes();
+            operations += completed;
+            throughput[i] = completed / (elapsed / 1e9);
+        }
+
+        double mean = Arrays.stream(throughput).average().orElse(0);
+        double variance = Arrays.stream(throughput).map(t -> (t - mean) * (t - mean)).sum() / throughput.length;
+        return new Result(mean, Math.sqrt(variance), operations == 0 ? 0 : (double) allocated / operations,
+                latency.percentile(50), latency.percentile(99));
+    }
+
+    // Same counter the JMH gc profiler uses, read for the calling thread only
+    private static long threadAllocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static List<Student> students(int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            students.add(new Student("S" + i, "Student " + i, "s" + i + "@university.edu", "Computer Science"));
+        }
+        return students;
+    }
+
+    private static List<StudentRecord> studentRecords(int count) {
+        List<StudentRecord> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            students.add(new StudentRecord("S" + i, "Student " + i, "s" + i + "@university.edu",
+                    "Computer Science", List.of()));
+        }
+        return students;
+    }
+
+    private static List<CourseRecord> courseRecords(Scenario scenario) {
+        List<CourseRecord> courses = new ArrayList<>(scenario.courses());
+        for (int c = 0; c < scenario.courses(); c++) {
+            courses.add(new CourseRecord("C" + c, "Course " + c, "P1", List.of(), scenario.capacity()));
+        }
+        return courses;
+    }
+
+    // Mutable OOP engine: EnrollmentSystem over plain Course objects
+    private static final class OopEngine implements Engine {
+        private Scenario scenario;
+        private Course[] courses;
+        private List<Student> students;
+        private EnrollmentSystem system;
+
+        public String name() {
+            return "oop";
+        }
+
+        public boolean concurrent() {
+            return false;
+        }
+
+        public void setUp(Scenario scenario) {
+            this.scenario = scenario;
+            courses = new Course[scenario.courses()];
+            for (int c = 0; c < courses.length; c++) {
+                courses[c] = new Course("C" + c, "Course " + c, scenario.capacity());
+            }
+            students = students(scenario.students());
+            system = new EnrollmentSystem(List.of());
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) {
+            for (int i = 0; i < scenario.students(); i++) {
+                long begin = System.nanoTime();
+                boolean enrolled = system.enrollStudent(students.get(i), courses[i % courses.length]);
+                latency.record(System.nanoTime() - begin);
+                sink.consume(enrolled);
+            }
+            return scenario.students();
+        }
+    }
+
+    // Immutable FP engine: one EnrollmentService call per request; rosters carry their own membership set
+    private static final class FpServiceEngine implements Engine {
+        private Scenario scenario;
+        private CourseRecord[] courses;
+        private List<StudentRecord> students;
+
+        public String name() {
+            return "fp-service";
+        }
+
+        public boolean concurrent() {
+            return false;
+        }
+
+        public void setUp(Scenario scenario) {
+            this.scenario = scenario;
+            courses = courseRecords(scenario).toArray(new CourseRecord[0]);
+            students = studentRecords(scenario.students());
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) {
+            for (int i = 0; i < scenario.students(); i++) {
+                int c = i % courses.length;
+                long begin = System.nanoTime();
+                Optional<CourseRecord> updated = EnrollmentService.enrollStudent(courses[c], students.get(i));
+                latency.record(System.nanoTime() - begin);
+                if (updated.isPresent()) {
+                    courses[c] = updated.get();
+                }
+            }
+            sink.consume(courses);
+            return scenario.students();
+        }
+    }
+
+    // The original stream pipeline; it places at most one student per course per call, so its
+    // throughput counts the students it placed rather than the requests it was given
+    private static final class FpProcessorEngine implements Engine {
+        private List<CourseRecord> courses;
+        private List<StudentRecord> students;
+        private List<String> requests;
+
+        public String name() {
+            return "fp-processor";
+        }
+
+        public boolean concurrent() {
+            return false;
+        }
+
+        public void setUp(Scenario scenario) {
+            courses = courseRecords(scenario);
+            students = studentRecords(scenario.students());
+            requests = new ArrayList<>(scenario.students());
+            for (int i = 0; i < scenario.students(); i++) {
+                requests.add("C" + (i % scenario.courses()));
+            }
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) {
+            long begin = System.nanoTime();
+            List<CourseRecord> updated = new EnrollmentProcessor().processEnrollments(courses, students, requests);
+            latency.record(System.nanoTime() - begin);
+            sink.consume(updated);
+            long placed = 0;
+            for (int c = 0; c < updated.size(); c++) {
+                placed += updated.get(c).enrolledStudentIds().size() - courses.get(c).enrolledStudentIds().size();
+            }
+            return placed;
+        }
+    }
+
+    // Single-pass batch engine; latency is per batch. It fills courses on a parallel stream, which
+    // runs in a private pool here so the fork-join workers' allocation can be metered
+    private static final class FpBatchEngine implements Engine {
+        private List<CourseRecord> courses;
+        private List<EnrollmentRequest> requests;
+        private AllocationMeter meter;
+        private ForkJoinPool pool;
+        private long workerBytes;
+
+        public String name() {
+            return "fp-batch";
+        }
+
+        public boolean concurrent() {
+            return false;
+        }
+
+        public void setUp(Scenario scenario) {
+            courses = courseRecords(scenario);
+            List<StudentRecord> students = studentRecords(scenario.students());
+            requests = new ArrayList<>(scenario.students());
+            for (int i = 0; i < scenario.students(); i++) {
+                requests.add(new EnrollmentRequest(students.get(i), "C" + (i % scenario.courses())));
+            }
+            meter = new AllocationMeter();
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), meter.forkJoinThreads(), null, false);
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) throws Exception {
+            long begin = System.nanoTime();
+            BatchEnrollmentResult result = pool.submit(
+                    () -> new BatchEnrollmentProcessor().processEnrollments(courses, requests)).get();
+            latency.record(System.nanoTime() - begin);
+            sink.consume(result);
+            return requests.size();
+        }
+
+        public void tearDown() throws InterruptedException {
+            pool.shutdown();
+            workerBytes = meter.total();
+        }
+
+        public long workerAllocatedBytes() {
+            return workerBytes;
+        }
+    }
+
+    // CAS-based ConcurrentCourse driven by a fixed pool of caller threads
+    private static final class ConcurrentOopEngine implements Engine {
+        private Scenario scenario;
+        private ConcurrentCourse[] courses;
+        private List<Student> students;
+        private EnrollmentSystem system;
+        private AllocationMeter meter;
+        private ExecutorService pool;
+        private long workerBytes;
+
+        public String name() {
+            return "oop-concurrent";
+        }
+
+        public boolean concurrent() {
+            return true;
+        }
+
+        public void setUp(Scenario scenario) {
+            this.scenario = scenario;
+            courses = new ConcurrentCourse[scenario.courses()];
+            for (int c = 0; c < courses.length; c++) {
+                courses[c] = new ConcurrentCourse("C" + c, "Course " + c, scenario.capacity());
+            }
+            students = students(scenario.students());
+            system = new EnrollmentSystem(List.of());
+            meter = new AllocationMeter();
+            pool = Executors.newFixedThreadPool(scenario.threads(), meter.threads());
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) throws InterruptedException {
+            int threads = scenario.threads();
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                pool.execute(() -> {
+                    for (int i = first; i < scenario.students(); i += threads) {
+                        long begin = System.nanoTime();
+                        boolean enrolled = system.enrollStudent(students.get(i), courses[i % courses.length]);
+                        latency.record(System.nanoTime() - begin);
+                        sink.consume(enrolled);
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+            return scenario.students();
+        }
+
+        public void tearDown() throws InterruptedException {
+            pool.shutdown();
+            workerBytes = meter.total();
+        }
+
+        public long workerAllocatedBytes() {
+            return workerBytes;
+        }
+    }
+
+    // Immutable records in compare-and-set cells, driven by a fixed pool of caller threads
+    private static final class FpCasEngine implements Engine {
+        private Scenario scenario;
+        private CourseRecordStore store;
+        private List<StudentRecord> students;
+        private AllocationMeter meter;
+        private ExecutorService pool;
+        private long workerBytes;
+
+        public String name() {
+            return "fp-cas";
+        }
+
+        public boolean concurrent() {
+            return true;
+        }
+
+        public void setUp(Scenario scenario) {
+            this.scenario = scenario;
+            store = CourseRecordStore.of(courseRecords(scenario));
+            students = studentRecords(scenario.students());
+            meter = new AllocationMeter();
+            pool = Executors.newFixedThreadPool(scenario.threads(), meter.threads());
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) throws InterruptedException {
+            int threads = scenario.threads();
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                pool.execute(() -> {
+                    for (int i = first; i < scenario.students(); i += threads) {
+                        long begin = System.nanoTime();
+                        CasUpdateResult result = store.enroll("C" + (i % scenario.courses()), students.get(i));
+                        latency.record(System.nanoTime() - begin);
+                        sink.consume(result.status() == CasUpdateStatus.APPLIED);
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+            return scenario.students();
+        }
+
+        public void tearDown() throws InterruptedException {
+            pool.shutdown();
+            workerBytes = meter.total();
+        }
+
+        public long workerAllocatedBytes() {
+            return workerBytes;
+        }
+    }
+
+    // Shard-per-core engine; latency runs from submit to future completion. The shard threads are
+    // the engine's own, so each one reports its allocation counter through a query it runs itself
+    private static final class ShardedEngine implements Engine {
+        private Scenario scenario;
+        private List<Student> students;
+        private ShardedEnrollmentEngine engine;
+        private AllocationMeter meter;
+        private ExecutorService producers;
+        // One course id owned by each shard that owns any, and each shard's counter before run
+        private String[] shardCourses;
+        private long[] shardBytesBefore;
+        private long workerBytes;
+
+        public String name() {
+            return "sharded";
+        }
+
+        public boolean concurrent() {
+            return true;
+        }
+
+        public void setUp(Scenario scenario) {
+            this.scenario = scenario;
+            students = students(scenario.students());
+            engine = new ShardedEnrollmentEngine(scenario.threads(), 8192, List.of());
+            for (int c = 0; c < scenario.courses(); c++) {
+                engine.addCourse(new Course("C" + c, "Course " + c, scenario.capacity())).join();
+            }
+            shardCourses = new String[engine.shardCount()];
+            for (int c = 0; c < scenario.courses(); c++) {
+                String courseId = "C" + c;
+                int shard = engine.shardOf(courseId);
+                if (shardCourses[shard] == null) {
+                    shardCourses[shard] = courseId;
+                }
+            }
+            shardBytesBefore = shardAllocatedBytes();
+            meter = new AllocationMeter();
+            producers = Executors.newFixedThreadPool(scenario.threads(), meter.threads());
+        }
+
+        public long run(LatencyHistogram latency, Blackhole sink) throws InterruptedException {
+            int threads = scenario.threads();
+            CountDownLatch completed = new CountDownLatch(scenario.students());
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                producers.execute(() -> {
+                    for (int i = first; i < scenario.students(); i += threads) {
+                        long begin = System.nanoTime();
+                        engine.enrollStudent(students.get(i), "C" + (i % scenario.courses()))
+                                .whenComplete((ok, error) -> {
+                                    latency.record(System.nanoTime() - begin);
+                                    sink.consume(ok != null && ok);
+                                    completed.countDown();
+                                });
+                    }
+                });
+            }
+            completed.await();
+            return scenario.students();
+        }
+
+        public void tearDown() throws InterruptedException {
+            long[] shardBytesAfter = shardAllocatedBytes();
+            producers.shutdown();
+            engine.close();
+            for (int s = 0; s < shardBytesAfter.length; s++) {
+                meter.add(shardBytesAfter[s] - shardBytesBefore[s]);
+            }
+            workerBytes = meter.total();
+        }
+
+        public long workerAllocatedBytes() {
+            return workerBytes;
+        }
+
+        // Shards that own no course do no enrollment work and stay at zero
+        private long[] shardAllocatedBytes() {
+            long[] bytes = new long[shardCourses.length];
+            for (int s = 0; s < shardCourses.length; s++) {
+                if (shardCourses[s] != null) {
+                    bytes[s] = engine.query(shardCourses[s], course -> threadAllocatedBytes()).join();
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// HTTP front end for EnrollmentSystem
+// Uses the JDK's built-in com.sun.net.httpserver, one task per request on a pluggable executor
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// The executor requests run on and what it really is, so reports name the threading model they measured
+record ServerExecutor(ExecutorService executor, String description) {}
+
+class EnrollmentHttpService implements AutoCloseable {
+    private final EnrollmentSystem system;
+    private final Map<String, ConcurrentCourse> courses = new ConcurrentHashMap<>();
+    private final Map<String, Student> students = new ConcurrentHashMap<>();
+    private final ServerExecutor executor;
+    private HttpServer server;
+
+    public EnrollmentHttpService(EnrollmentSystem system, ServerExecutor executor) {
+        this.system = system;
+        this.executor = executor;
+    }
+
+    // Virtual threads need JDK 21; on older runtimes this falls back to a cached platform pool,
+    // and the description says so
+    public static ServerExecutor newVirtualThreadExecutor() {
+        try {
+            return new ServerExecutor((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null), "virtual threads, one per request");
+        } catch (ReflectiveOperationException e) {
+            return new ServerExecutor(Executors.newCachedThreadPool(),
+                    "cached platform pool (virtual threads unavailable on " + Runtime.version() + ": " + e + ")");
+        }
+    }
+
+    public String executorDescription() {
+        return executor.description();
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // Courses are shared by all request threads, so use the CAS-based implementation
+    public void addCourse(ConcurrentCourse course) {
+        courses.put(course.getCourseId(), course);
+    }
+
+    public void addStudent(Student student) {
+        students.put(student.getId(), student);
+    }
+
+    // Port 0 picks a free port; read it back with getPort()
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(executor.executor());
+        server.createContext("/enroll", this::handleEnroll);
+        server.createContext("/course", this::handleCourse);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        executor.executor().shutdown();
+    }
+
+    // POST /enroll?studentId=S1&courseId=CS101 -> 200 "true" or "false", 404 for unknown ids
+    private void handleEnroll(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "POST only");
+            return;
+        }
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Student student = students.get(query.getOrDefault("studentId", ""));
+        Course course = courses.get(query.getOrDefault("courseId", ""));
+        if (student == null || course == null) {
+            respond(exchange, 404, "unknown student or course");
+            return;
+        }
+        respond(exchange, 200, String.valueOf(system.enrollStudent(student, course)));
+    }
+
+    // GET /course?courseId=CS101 -> "enrolled/capacity"
+    private void handleCourse(HttpExchange exchange) throws IOException {
+        ConcurrentCourse course = courses.get(parseQuery(exchange.getRequestURI().getRawQuery())
+                .getOrDefault("courseId", ""));
+        if (course == null) {
+            respond(exchange, 404, "unknown course");
+            return;
+        }
+        respond(exchange, 200, course.getSeatsTaken() + "/" + course.getMaxCapacity());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,108 @@
+// Bidirectional enrollment index
+// Owns both "students in course" and "courses of student" for the courses it tracks. It follows
+// every write path through CourseListener, so enrollments made through EnrollmentSystem, waitlists,
+// seat holds or journal replay all land here, and hands out read-only views created once per key
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+class EnrollmentIndex implements CourseListener {
+    private final Map<Course, Members<Student>> studentsByCourse = new ConcurrentHashMap<>();
+    private final Map<Student, Members<Course>> coursesByStudent = new ConcurrentHashMap<>();
+    private final Set<Course> tracked = ConcurrentHashMap.newKeySet();
+
+    // Tracks the courses and indexes the rosters they already have
+    public static EnrollmentIndex of(Collection<? extends Course> courses) {
+        EnrollmentIndex index = new EnrollmentIndex();
+        courses.forEach(index::track);
+        return index;
+    }
+
+    // Track a course before it takes enrollments from other threads, or the initial scan may race
+    public void track(Course course) {
+        if (!tracked.add(course)) {
+            return;
+        }
+        for (Student student : course.getEnrolledStudents()) {
+            link(student, course);
+        }
+        course.addListener(this);
+    }
+
+    // Convenience write paths; the index itself is updated by the course's events
+    public boolean enroll(Student student, Course course) {
+        return student.enrollInCourse(course);
+    }
+
+    public boolean drop(Student student, Course course) {
+        return student.dropCourse(course);
+    }
+
+    @Override
+    public void onStudentAdded(Course course, Student student) {
+        link(student, course);
+    }
+
+    @Override
+    public void onStudentRemoved(Course course, Student student) {
+        unlink(student, course);
+    }
+
+    // O(1) and allocation-free: the same live, read-only view is returned on every call
+    public Set<Student> studentsIn(Course course) {
+        Members<Student> members = studentsByCourse.get(course);
+        return members == null ? Collections.emptySet() : members.view;
+    }
+
+    public Set<Course> coursesOf(Student student) {
+        Members<Course> members = coursesByStudent.get(student);
+        return members == null ? Collections.emptySet() : members.view;
+    }
+
+    public boolean isEnrolled(Student student, Course course) {
+        Members<Course> members = coursesByStudent.get(student);
+        return members != null && members.counts.containsKey(course);
+    }
+
+    public int studentCount(Course course) {
+        return studentsIn(course).size();
+    }
+
+    public int courseCount(Student student) {
+        return coursesOf(student).size();
+    }
+
+    private void link(Student student, Course course) {
+        studentsByCourse.computeIfAbsent(course, c -> new Members<>()).add(student);
+        coursesByStudent.computeIfAbsent(student, s -> new Members<>()).add(course);
+    }
+
+    private void unlink(Student student, Course course) {
+        Members<Student> students = studentsByCourse.get(course);
+        if (students != null) {
+            students.remove(student);
+        }
+        Members<Course> courses = coursesByStudent.get(student);
+        if (courses != null) {
+            courses.remove(course);
+        }
+    }
+
+    // Counts per member, because a plain Course accepts the same student twice and the link must
+    // stay until the last of those enrollments is dropped. Callers only ever see the key view
+    private static final class Members<T> {
+        private final ConcurrentHashMap<T, Integer> counts = new ConcurrentHashMap<>();
+        private final Set<T> view = Collections.unmodifiableSet(counts.keySet());
+
+        void add(T member) {
+            counts.merge(member, 1, Integer::sum);
+        }
+
+        void remove(T member) {
+            counts.computeIfPresent(member, (m, n) -> n == 1 ? null : n - 1);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+// Write-ahead enrollment journal
+// Append-only, memory-mapped log of enroll/drop/assign events with group commit and checkpoints
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+enum JournalEventType {
+    ENROLL, DROP, ASSIGN_PROFESSOR
+}
+
+// Receives journal events during replay, in the order they must be applied
+interface JournalReplayTarget {
+    void onEnroll(String studentId, String courseId);
+
+    void onDrop(String studentId, String courseId);
+
+    void onAssignProfessor(String professorId, String courseId);
+}
+
+class EnrollmentJournal implements Closeable {
+    private static final int CHECKPOINT_MAGIC = 0x45435032; // "ECP2"
+    private static final int HEADER_BYTES = 8; // payload length + CRC32
+    private static final int INITIAL_LOG_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final int checkpointInterval;
+
+    // Compacted state (checkpoint plus log), which is what the next checkpoint writes out.
+    // A drop is kept as a tombstone, since the student it removes may come from state this
+    // journal never saw, such as a catalog snapshot or the records a replay target starts from
+    private final Map<String, Set<String>> rosters = new LinkedHashMap<>();
+    private final Map<String, Set<String>> dropped = new LinkedHashMap<>();
+    private final Map<String, String> professors = new LinkedHashMap<>();
+
+    private final Object writeLock = new Object();
+    private final Object flushLock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer log;
+    private int generation;
+    private long appendedSeq;
+    private long eventsSinceCheckpoint;
+    private long durableSeq;
+    private boolean flushing;
+
+    private EnrollmentJournal(Path directory, int checkpointInterval) {
+        this.directory = directory;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    // Loads the latest checkpoint, replays the log after it and opens the log for appends
+    public static EnrollmentJournal open(Path directory, int checkpointInterval) throws IOException {
+        Files.createDirectories(directory);
+        EnrollmentJournal journal = new EnrollmentJournal(directory, checkpointInterval);
+        journal.readCheckpoint();
+        journal.deleteLogsBefore(journal.generation);
+        journal.openLog();
+        return journal;
+    }
+
+    public long append(JournalEventType type, String first, String second) throws IOException {
+        byte[] a = first.getBytes(StandardCharsets.UTF_8);
+        byte[] b = second.getBytes(StandardCharsets.UTF_8);
+        if (a.length > 0xFFFF || b.length > 0xFFFF) {
+            throw new IllegalArgumentException("Journal ids are limited to 65535 UTF-8 bytes");
+        }
+        int payloadLength = 1 + 2 + a.length + 2 + b.length;
+
+        synchronized (writeLock) {
+            if (log.remaining() < HEADER_BYTES + payloadLength) {
+                remap(Math.max(log.capacity() * 2L, log.position() + (long) HEADER_BYTES + payloadLength));
+            }
+            ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+            payload.put((byte) type.ordinal());
+            payload.putShort((short) a.length).put(a);
+            payload.putShort((short) b.length).put(b);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+
+            log.putInt(payloadLength);
+            log.putInt((int) crc.getValue());
+            log.put(payload.array());
+            apply(type, first, second);
+            appendedSeq++;
+            long seq = appendedSeq;
+
+            if (++eventsSinceCheckpoint >= checkpointInterval) {
+                checkpointLocked();
+            }
+            return seq;
+        }
+    }
+
+    // Group commit: one thread forces the mapping, everyone whose event it covered returns
+    public void sync(long seq) throws IOException {
+        while (true) {
+            synchronized (flushLock) {
+                while (flushing && durableSeq < seq) {
+                    try {
+                        flushLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for journal sync");
+                    }
+                }
+                if (durableSeq >= seq) {
+                    return;
+                }
+                flushing = true;
+            }
+
+            long target;
+            MappedByteBuffer toFlush;
+            synchronized (writeLock) {
+                target = appendedSeq;
+                toFlush = log;
+            }
+            boolean flushed = false;
+            try {
+                toFlush.force();
+                flushed = true;
+            } finally {
+                synchronized (flushLock) {
+                    if (flushed) {
+                        durableSeq = Math.max(durableSeq, target);
+                    }
+                    flushing = false;
+                    flushLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    public void appendAndSync(JournalEventType type, String first, String second) throws IOException {
+        sync(append(type, first, second));
+    }
+
+    // Replays the compacted state: professor assignments first, then every drop, then each roster
+    // in enrollment order. Drops go first so they free seats for the enrollments that follow
+    public void replay(JournalReplayTarget target) {
+        synchronized (writeLock) {
+            professors.forEach((courseId, professorId) -> target.onAssignProfessor(professorId, courseId));
+            dropped.forEach((courseId, studentIds) ->
+                    studentIds.forEach(studentId -> target.onDrop(studentId, courseId)));
+            rosters.forEach((courseId, studentIds) ->
+                    studentIds.forEach(studentId -> target.onEnroll(studentId, courseId)));
+        }
+    }
+
+    public void checkpoint() throws IOException {
+        synchronized (writeLock) {
+            checkpointLocked();
+        }
+    }
+
+    public long appendedEvents() {
+        synchronized (writeLock) {
+            return appendedSeq;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            log.force();
+            channel.close();
+        }
+    }
+
+    private void apply(JournalEventType type, String first, String second) {
+        switch (type) {
+            // Only the latest event per student and course survives compaction
+            case ENROLL -> {
+                rosters.computeIfAbsent(second, k -> new LinkedHashSet<>()).add(first);
+                removeFrom(dropped, second, first);
+            }
+            case DROP -> {
+                removeFrom(rosters, second, first);
+                dropped.computeIfAbsent(second, k -> new LinkedHashSet<>()).add(first);
+            }
+            case ASSIGN_PROFESSOR -> professors.put(second, first);
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<String>> sets, String key, String value) {
+        Set<String> set = sets.get(key);
+        if (set != null && set.remove(value) && set.isEmpty()) {
+            sets.remove(key);
+        }
+    }
+
+    // Checkpoint for generation g+1 is written and synced before log g+1 is created,
+    // so a crash at any point leaves either the old or the new pair readable
+    private void checkpointLocked() throws IOException {
+        int nextGeneration = generation + 1;
+        Path tmp = directory.resolve("checkpoint.tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(nextGeneration);
+            out.writeLong(appendedSeq);
+            Set<String> courseIds = new LinkedHashSet<>(professors.keySet());
+            courseIds.addAll(rosters.keySet());
+            courseIds.addAll(dropped.keySet());
+            out.writeInt(courseIds.size());
+            for (String courseId : courseIds) {
+                out.writeUTF(courseId);
+                out.writeUTF(professors.getOrDefault(courseId, ""));
+                writeIds(out, rosters.getOrDefault(courseId, Set.of()));
+                writeIds(out, dropped.getOrDefault(courseId, Set.of()));
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, checkpointPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();
+        generation = nextGeneration;
+        eventsSinceCheckpoint = 0;
+        deleteLogsBefore(generation);
+        openLog();
+        synchronized (flushLock) {
+            durableSeq = Math.max(durableSeq, appendedSeq);
+        }
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path path = checkpointPath();
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            if (magic != CHECKPOINT_MAGIC) {
+                throw new IOException("Not an enrollment checkpoint: " + path);
+            }
+            generation = in.readInt();
+            appendedSeq = in.readLong();
+            int courses = in.readInt();
+            for (int i = 0; i < courses; i++) {
+                String courseId = in.readUTF();
+                String professorId = in.readUTF();
+                if (!professorId.isEmpty()) {
+                    professors.put(courseId, professorId);
+                }
+                Set<String> roster = readIds(in);
+                if (!roster.isEmpty()) {
+                    rosters.put(courseId, roster);
+                }
+                Set<String> drops = readIds(in);
+                if (!drops.isEmpty()) {
+                    dropped.put(courseId, drops);
+                }
+            }
+        }
+        durableSeq = appendedSeq;
+    }
+
+    // Maps the current generation's log and replays every complete record.
+    // A torn or corrupt tail fails its CRC and is overwritten by the next append.
+    private void openLog() throws IOException {
+        channel = FileChannel.open(logPath(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_LOG_BYTES, channel.size()));
+
+        CRC32 crc = new CRC32();
+        while (log.remaining() >= HEADER_BYTES) {
+            int start = log.position();
+            int length = log.getInt();
+            int checksum = log.getInt();
+            if (length <= 0 || length > log.remaining()) {
+                log.position(start);
+                break;
+            }
+            byte[] payload = new byte[length];
+            log.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.position(start);
+                break;
+            }
+            ByteBuffer in = ByteBuffer.wrap(payload);
+            JournalEventType type = JournalEventType.values()[in.get()];
+            apply(type, readString(in), readString(in));
+            appendedSeq++;
+            eventsSinceCheckpoint++;
+        }
+        // Zero the next header so a stale record from a longer, older log is never read back
+        if (log.remaining() >= HEADER_BYTES) {
+            log.putLong(log.position(), 0L);
+        }
+        synchronized (flushLock) {
+            durableSeq = appendedSeq;
+        }
+    }
+
+    private void remap(long capacity) throws IOException {
+        int position = log.position();
+        log = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        log.position(position);
+    }
+
+    private void deleteLogsBefore(int keepGeneration) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.matches("enrollment-\\d+\\.log")
+                        && Integer.parseInt(name.substring(11, name.length() - 4)) < keepGeneration;
+            }).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, Set<String> ids) throws IOException {
+        out.writeInt(ids.size());
+        for (String id : ids) {
+            out.writeUTF(id);
+        }
+    }
+
+    private static Set<String> readIds(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Set<String> ids = new LinkedHashSet<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            ids.add(in.readUTF());
+        }
+        return ids;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path checkpointPath() {
+        return directory.resolve("checkpoint.bin");
+    }
+
+    private Path logPath(int generation) {
+        return directory.resolve("enrollment-" + generation + ".log");
+    }
+}
@@ -0,0 +1,109 @@
+// Load generator for EnrollmentHttpService
+// Runs the same enroll workload against platform-thread and virtual-thread servers
+// and reports requests/sec with p50/p99/p999 latency
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EnrollmentLoadGenerator {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        report("platform (fixed 64)", new ServerExecutor(Executors.newFixedThreadPool(64), "fixed platform pool of 64"),
+                clients, requestsPerClient);
+        if (EnrollmentHttpService.virtualThreadsAvailable()) {
+            report("virtual", EnrollmentHttpService.newVirtualThreadExecutor(), clients, requestsPerClient);
+        } else {
+            System.out.println("virtual: needs JDK 21, skipped (running on " + Runtime.version() + ")");
+        }
+    }
+
+    private static void report(String label, ServerExecutor serverExecutor, int clients, int requestsPerClient)
+            throws Exception {
+        try (EnrollmentHttpService service = new EnrollmentHttpService(new EnrollmentSystem(List.of()), serverExecutor)) {
+            System.out.println(label + ": server executor is " + service.executorDescription());
+            int courseCount = 50;
+            for (int c = 0; c < courseCount; c++) {
+                service.addCourse(new ConcurrentCourse("C" + c, "Course " + c, 1_000));
+            }
+            int studentCount = clients * requestsPerClient;
+            for (int s = 0; s < studentCount; s++) {
+                service.addStudent(new Student("S" + s, "Student " + s, "s" + s + "@university.edu", "Computer Science"));
+            }
+            service.start(0);
+
+            Result result = drive(service.getPort(), clients, requestsPerClient, courseCount);
+            System.out.printf("%-22s %8.0f req/s  p50 %6.2f ms  p99 %7.2f ms  p999 %7.2f ms  accepted %d, errors %d%n",
+                    label, result.requestsPerSecond(), result.p50Millis(), result.p99Millis(), result.p999Millis(),
+                    result.accepted(), result.errors());
+        }
+    }
+
+    private static Result drive(int port, int clients, int requestsPerClient, int courseCount) throws Exception {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < requestsPerClient; i++) {
+                    int n = client * requestsPerClient + i;
+                    HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port
+                                    + "/enroll?studentId=S" + n + "&courseId=C" + (n % courseCount)))
+                            .POST(HttpRequest.BodyPublishers.noBody())
+                            .build();
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        } else if (Boolean.parseBoolean(response.body())) {
+                            accepted.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[n] = System.nanoTime() - begin;
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        Arrays.sort(latencies);
+        return new Result(latencies.length / seconds, percentileMillis(latencies, 50),
+                percentileMillis(latencies, 99), percentileMillis(latencies, 99.9), accepted.get(), errors.get());
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private record Result(double requestsPerSecond, double p50Millis, double p99Millis, double p999Millis,
+                          int accepted, int errors) {}
+}
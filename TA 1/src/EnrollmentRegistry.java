@@ -0,0 +1,89 @@
+// Indexed lookups for the FP model
+// Keeps StudentRecord/CourseRecord in hash maps so joins by id are O(1)
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+class EnrollmentRegistry {
+    // LinkedHashMap keeps insertion order so listings stay stable
+    private final Map<String, StudentRecord> studentsById;
+    private final Map<String, CourseRecord> coursesById;
+
+    public EnrollmentRegistry(Collection<CourseRecord> courses, Collection<StudentRecord> students) {
+        this.coursesById = new LinkedHashMap<>(Math.max(16, courses.size() * 4 / 3 + 1));
+        this.studentsById = new LinkedHashMap<>(Math.max(16, students.size() * 4 / 3 + 1));
+        courses.forEach(this::putCourse);
+        students.forEach(this::putStudent);
+    }
+
+    public void putCourse(CourseRecord course) {
+        coursesById.put(course.courseId(), course);
+    }
+
+    public void putStudent(StudentRecord student) {
+        studentsById.put(student.id(), student);
+    }
+
+    // Records are immutable, so an "update" simply replaces the indexed value
+    public void putAllCourses(Collection<CourseRecord> courses) {
+        courses.forEach(this::putCourse);
+    }
+
+    public Optional<CourseRecord> findCourse(String courseId) {
+        return Optional.ofNullable(coursesById.get(courseId));
+    }
+
+    public Optional<StudentRecord> findStudent(String studentId) {
+        return Optional.ofNullable(studentsById.get(studentId));
+    }
+
+    // Bulk join: one hash lookup per id, unknown ids are skipped
+    public List<StudentRecord> resolveAll(Collection<String> studentIds) {
+        List<StudentRecord> resolved = new ArrayList<>(studentIds.size());
+        for (String studentId : studentIds) {
+            StudentRecord student = studentsById.get(studentId);
+            if (student != null) {
+                resolved.add(student);
+            }
+        }
+        return resolved;
+    }
+
+    public List<StudentRecord> rosterOf(String courseId) {
+        return findCourse(courseId)
+                .map(course -> resolveAll(course.enrolledStudentIds()))
+                .orElse(List.of());
+    }
+
+    // Renders the roster in the same format the demo prints
+    public String renderRoster(String courseId) {
+        StringBuilder sb = new StringBuilder();
+        findCourse(courseId).ifPresent(course -> {
+            sb.append("Total enrolled: ").append(course.enrolledStudentIds().size()).append('\n');
+            for (StudentRecord s : resolveAll(course.enrolledStudentIds())) {
+                sb.append(s.name()).append(" (ID: ").append(s.id()).append(")\n");
+            }
+        });
+        return sb.toString();
+    }
+
+    public Collection<CourseRecord> courses() {
+        return coursesById.values();
+    }
+
+    public Collection<StudentRecord> students() {
+        return studentsById.values();
+    }
+
+    public int courseCount() {
+        return coursesById.size();
+    }
+
+    public int studentCount() {
+        return studentsById.size();
+    }
+}
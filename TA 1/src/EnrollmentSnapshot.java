@@ -0,0 +1,276 @@
+// Binary snapshot of course and student state
+// Strings are stored once in a length-prefixed dictionary and referenced by int.
+// Loading only maps the file; rows and strings are decoded when first read.
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Layout (all ints big-endian):
+//   header      MAGIC, VERSION, stringCount, studentCount, courseCount, poolSize
+//   offsets     stringCount ints, byte offset of each string inside the string data
+//   students    studentCount rows of (id, name, email, major, poolStart, poolLength), sorted by id
+//   courses     courseCount rows of (id, name, professorId, maxCapacity, poolStart, poolLength), sorted by id
+//   pool        poolSize string refs holding the enrollment lists
+//   strings     per string: int byte length followed by UTF-8 bytes
+class EnrollmentSnapshot {
+    private static final int MAGIC = 0x454E5331; // "ENS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 6;
+    private static final int ROW_INTS = 6;
+    private static final int NO_STRING = -1;
+
+    private final ByteBuffer data;
+    private final int stringCount;
+    private final int studentCount;
+    private final int courseCount;
+    private final int offsetsStart;
+    private final int studentsStart;
+    private final int coursesStart;
+    private final int poolStart;
+    private final int stringsStart;
+    // Filled on first use, so only the strings that are actually read get decoded
+    private final String[] strings;
+
+    private EnrollmentSnapshot(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not an enrollment snapshot (version " + VERSION + ")");
+        }
+        stringCount = data.getInt(8);
+        studentCount = data.getInt(12);
+        courseCount = data.getInt(16);
+        int poolSize = data.getInt(20);
+        offsetsStart = HEADER_INTS * 4;
+        studentsStart = offsetsStart + stringCount * 4;
+        coursesStart = studentsStart + studentCount * ROW_INTS * 4;
+        poolStart = coursesStart + courseCount * ROW_INTS * 4;
+        stringsStart = poolStart + poolSize * 4;
+        strings = new String[stringCount];
+    }
+
+    // Maps the file read-only; nothing beyond the header is parsed here
+    public static EnrollmentSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new EnrollmentSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void write(Path path, List<CourseRecord> courses, List<StudentRecord> students) throws IOException {
+        List<StudentRecord> sortedStudents = new ArrayList<>(students);
+        sortedStudents.sort(Comparator.comparing(StudentRecord::id));
+        List<CourseRecord> sortedCourses = new ArrayList<>(courses);
+        sortedCourses.sort(Comparator.comparing(CourseRecord::courseId));
+
+        // Dictionary-encode every string once
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        int[] pool = new int[1024];
+        int poolSize = 0;
+        int[][] studentRows = new int[sortedStudents.size()][];
+        for (int i = 0; i < sortedStudents.size(); i++) {
+            StudentRecord s = sortedStudents.get(i);
+            int start = poolSize;
+            for (String courseId : s.enrolledCourseIds()) {
+                if (poolSize == pool.length) {
+                    pool = Arrays.copyOf(pool, poolSize * 2);
+                }
+                pool[poolSize++] = ref(dictionary, courseId);
+            }
+            studentRows[i] = new int[]{ref(dictionary, s.id()), ref(dictionary, s.name()), ref(dictionary, s.email()),
+                    ref(dictionary, s.major()), start, poolSize - start};
+        }
+        int[][] courseRows = new int[sortedCourses.size()][];
+        for (int i = 0; i < sortedCourses.size(); i++) {
+            CourseRecord c = sortedCourses.get(i);
+            int start = poolSize;
+            for (String studentId : c.enrolledStudentIds()) {
+                if (poolSize == pool.length) {
+                    pool = Arrays.copyOf(pool, poolSize * 2);
+                }
+                pool[poolSize++] = ref(dictionary, studentId);
+            }
+            courseRows[i] = new int[]{ref(dictionary, c.courseId()), ref(dictionary, c.name()),
+                    ref(dictionary, c.professorId()), c.maxCapacity(), start, poolSize - start};
+        }
+
+        List<byte[]> encoded = new ArrayList<>(dictionary.size());
+        dictionary.keySet().forEach(s -> encoded.add(s.getBytes(StandardCharsets.UTF_8)));
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(encoded.size());
+            out.writeInt(studentRows.length);
+            out.writeInt(courseRows.length);
+            out.writeInt(poolSize);
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                out.writeInt(offset);
+                offset += 4 + bytes.length;
+            }
+            for (int[] row : studentRows) {
+                writeRow(out, row);
+            }
+            for (int[] row : courseRows) {
+                writeRow(out, row);
+            }
+            for (int i = 0; i < poolSize; i++) {
+                out.writeInt(pool[i]);
+            }
+            for (byte[] bytes : encoded) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int studentCount() {
+        return studentCount;
+    }
+
+    public int courseCount() {
+        return courseCount;
+    }
+
+    public StudentRecord student(int row) {
+        int base = rowBase(studentsStart, row, studentCount);
+        return new StudentRecord(string(data.getInt(base)), string(data.getInt(base + 4)),
+                string(data.getInt(base + 8)), string(data.getInt(base + 12)),
+                refList(data.getInt(base + 16), data.getInt(base + 20)));
+    }
+
+    public CourseRecord course(int row) {
+        int base = rowBase(coursesStart, row, courseCount);
+        return new CourseRecord(string(data.getInt(base)), string(data.getInt(base + 4)),
+                string(data.getInt(base + 8)), refList(data.getInt(base + 16), data.getInt(base + 20)),
+                data.getInt(base + 12));
+    }
+
+    // Binary search over the id-sorted rows, decoding only the ids it compares
+    public Optional<StudentRecord> findStudent(String id) {
+        int row = search(studentsStart, studentCount, id);
+        return row < 0 ? Optional.empty() : Optional.of(student(row));
+    }
+
+    public Optional<CourseRecord> findCourse(String courseId) {
+        int row = search(coursesStart, courseCount, courseId);
+        return row < 0 ? Optional.empty() : Optional.of(course(row));
+    }
+
+    public List<StudentRecord> students() {
+        return new AbstractList<>() {
+            @Override
+            public StudentRecord get(int index) {
+                return student(index);
+            }
+
+            @Override
+            public int size() {
+                return studentCount;
+            }
+        };
+    }
+
+    public List<CourseRecord> courses() {
+        return new AbstractList<>() {
+            @Override
+            public CourseRecord get(int index) {
+                return course(index);
+            }
+
+            @Override
+            public int size() {
+                return courseCount;
+            }
+        };
+    }
+
+    private int search(int sectionStart, int count, String id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = string(data.getInt(sectionStart + mid * ROW_INTS * 4)).compareTo(id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // The id list stays in the mapped file, each element is resolved when it is read
+    private List<String> refList(int start, int length) {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= length) {
+                    throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + length);
+                }
+                return string(data.getInt(poolStart + (start + index) * 4));
+            }
+
+            @Override
+            public int size() {
+                return length;
+            }
+        };
+    }
+
+    // Racy but safe: Strings are immutable, so two threads may at worst decode the same one twice
+    private String string(int ref) {
+        if (ref == NO_STRING) {
+            return null;
+        }
+        String value = strings[ref];
+        if (value == null) {
+            int position = stringsStart + data.getInt(offsetsStart + ref * 4);
+            byte[] bytes = new byte[data.getInt(position)];
+            data.get(position + 4, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[ref] = value;
+        }
+        return value;
+    }
+
+    private static int rowBase(int sectionStart, int row, int count) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + count);
+        }
+        return sectionStart + row * ROW_INTS * 4;
+    }
+
+    private static int ref(Map<String, Integer> dictionary, String value) {
+        return value == null ? NO_STRING : dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    private static void writeRow(DataOutputStream out, int[] row) throws IOException {
+        for (int value : row) {
+            out.writeInt(value);
+        }
+    }
+}
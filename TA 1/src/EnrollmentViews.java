@@ -0,0 +1,299 @@
+// Materialized enrollment views
+// Course fill ratios, enrollment counts per major and a "nearly full" ranking, all kept up to date
+// from CourseListener events so reports and UIs never walk courses or students.
+// An event takes only its own course's monitor and its student's map entry, and reads take no lock.
+// Counters update in O(1); the ranking is a skip list, so moving a course in it costs
+// O(log courses) per event, which buys nearlyFull(n) its O(log courses + n) read
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+record CourseFill(String courseId, int enrolled, int capacity) {
+    public double ratio() {
+        return capacity <= 0 ? 1.0 : (double) enrolled / capacity;
+    }
+}
+
+record EnrollmentViewSnapshot(long version, Map<String, Long> enrollmentsByMajor, long enrolled, long capacity,
+                              int fullCourses) {
+    public double fillRatio() {
+        return capacity == 0 ? 0 : (double) enrolled / capacity;
+    }
+
+    public long enrollmentsIn(String major) {
+        return enrollmentsByMajor.getOrDefault(major, 0L);
+    }
+}
+
+class EnrollmentViews implements CourseListener {
+    // Fullest first, then by course id; the sequence number keeps two courses apart and the
+    // version two entries of one course, so no two entries ever compare equal
+    private static final Comparator<Ranked> FULLEST_FIRST = Comparator
+            .comparingDouble((Ranked r) -> r.ratio).reversed()
+            .thenComparing(r -> r.courseId)
+            .thenComparingLong(r -> r.sequence)
+            .thenComparingLong(r -> r.version);
+    // Sorts after every full course (ratio >= 1) and before every course with a seat left, since
+    // enrolled / capacity below 1 never comes closer to 1 than the largest double below it
+    private static final Ranked FIRST_WITH_SEATS = new Ranked(Math.nextDown(1.0));
+
+    private final Map<Course, Fill> fills = new ConcurrentHashMap<>();
+    // Every tracked course by its current fill. A change inserts the new entry before removing the
+    // old one, so a reader may meet a course twice but never misses it
+    private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>(FULLEST_FIRST);
+    private final Map<String, LongAdder> enrollmentsByMajor = new ConcurrentHashMap<>();
+    // The major each student's enrollments are counted under, so a later setMajor can be moved over
+    private final Map<Student, CountedMajor> countedMajors = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder enrolled = new LongAdder();
+    private final LongAdder capacity = new LongAdder();
+    private final LongAdder fullCourses = new LongAdder();
+    // Counts changes rather than holding a version number, so writers never contend on one field
+    private final LongAdder changes = new LongAdder();
+    private volatile EnrollmentViewSnapshot snapshot = new EnrollmentViewSnapshot(0, Map.of(), 0, 0, 0);
+
+    public void trackAll(Collection<? extends Course> catalog) {
+        catalog.forEach(this::track);
+    }
+
+    // Track courses before they take enrollments from other threads, or the initial count may race
+    public synchronized void track(Course course) {
+        if (fills.containsKey(course)) {
+            return;
+        }
+        Fill fill = new Fill(course, sequence.incrementAndGet());
+        synchronized (fill) {
+            fill.capacity = course.getMaxCapacity();
+            for (Student student : course.getEnrolledStudents()) {
+                fill.enrolled++;
+                count(student, 1);
+            }
+            enrolled.add(fill.enrolled);
+            capacity.add(fill.capacity);
+            rerank(fill);
+        }
+        fills.put(course, fill);
+        course.addListener(this);
+        changes.increment();
+    }
+
+    @Override
+    public void onStudentAdded(Course course, Student student) {
+        Fill fill = fills.get(course);
+        if (fill != null) {
+            synchronized (fill) {
+                fill.enrolled++;
+                rerank(fill);
+            }
+            enrolled.increment();
+            count(student, 1);
+            changes.increment();
+        }
+    }
+
+    @Override
+    public void onStudentRemoved(Course course, Student student) {
+        Fill fill = fills.get(course);
+        if (fill != null) {
+            synchronized (fill) {
+                fill.enrolled--;
+                rerank(fill);
+            }
+            enrolled.decrement();
+            count(student, -1);
+            changes.increment();
+        }
+    }
+
+    @Override
+    public void onCapacityChanged(Course course, int previous, int current) {
+        Fill fill = fills.get(course);
+        if (fill != null) {
+            synchronized (fill) {
+                capacity.add(current - fill.capacity);
+                fill.capacity = current;
+                rerank(fill);
+            }
+            changes.increment();
+        }
+    }
+
+    // The ranking breaks ties by course id, so an id change moves the course
+    @Override
+    public void onCourseIdChanged(Course course, String previous, String current) {
+        Fill fill = fills.get(course);
+        if (fill != null) {
+            synchronized (fill) {
+                rerank(fill);
+            }
+        }
+    }
+
+    // Student has no listeners, so call this after setMajor on a student who is enrolled
+    public void refreshMajor(Student student) {
+        countedMajors.computeIfPresent(student, (s, counted) -> {
+            if (!counted.major.equals(majorOf(s))) {
+                adjustMajor(counted.major, -counted.enrollments);
+                counted.major = majorOf(s);
+                adjustMajor(counted.major, counted.enrollments);
+                changes.increment();
+            }
+            return counted;
+        });
+    }
+
+    public CourseFill fillOf(Course course) {
+        Fill fill = fills.get(course);
+        return fill == null ? null : fill.ranked.fill;
+    }
+
+    // The n fullest courses that still have a seat, fullest first. Starts right after the full
+    // courses in the ranking and reads n entries, so the cost is O(log courses + n) whatever the
+    // catalog looks like. Weakly consistent: a course changing meanwhile shows its old or new fill
+    public List<CourseFill> nearlyFull(int n) {
+        List<CourseFill> result = new ArrayList<>(Math.min(n, 64));
+        Set<Fill> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Ranked ranked : ranking.tailSet(FIRST_WITH_SEATS)) {
+            if (result.size() >= n) {
+                break;
+            }
+            if (seen.add(ranked.owner)) {
+                result.add(ranked.fill);
+            }
+        }
+        return result;
+    }
+
+    public int fullCourseCount() {
+        return fullCourses.intValue();
+    }
+
+    // Rebuilt only when something changed since the last read, so polling an idle system is free
+    public EnrollmentViewSnapshot snapshot() {
+        EnrollmentViewSnapshot current = snapshot;
+        long version = changes.sum();
+        if (current.version() == version) {
+            return current;
+        }
+        synchronized (this) {
+            // Stamped with the count read before copying, so changes made meanwhile trigger a rebuild
+            if (snapshot.version() != version) {
+                Map<String, Long> majors = new HashMap<>();
+                enrollmentsByMajor.forEach((major, count) -> {
+                    long sum = count.sum();
+                    if (sum != 0) {
+                        majors.put(major, sum);
+                    }
+                });
+                snapshot = new EnrollmentViewSnapshot(version, Collections.unmodifiableMap(majors),
+                        enrolled.sum(), capacity.sum(), fullCourses.intValue());
+            }
+            return snapshot;
+        }
+    }
+
+    // Runs inside the student's map entry, so events for different students never wait on each other
+    private void count(Student student, int delta) {
+        countedMajors.compute(student, (s, counted) -> {
+            if (counted == null) {
+                counted = new CountedMajor(majorOf(s));
+            }
+            counted.enrollments += delta;
+            adjustMajor(counted.major, delta);
+            return counted.enrollments == 0 ? null : counted;
+        });
+    }
+
+    private void adjustMajor(String major, long delta) {
+        enrollmentsByMajor.computeIfAbsent(major, m -> new LongAdder()).add(delta);
+    }
+
+    // Caller holds the fill's monitor
+    private void rerank(Fill fill) {
+        Ranked previous = fill.ranked;
+        Ranked next = new Ranked(new CourseFill(fill.course.getCourseId(), fill.enrolled, fill.capacity), fill,
+                ++fill.versions);
+        ranking.add(next);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        fill.ranked = next;
+        boolean wasFull = previous != null && previous.full();
+        if (next.full() != wasFull) {
+            fullCourses.add(next.full() ? 1 : -1);
+        }
+    }
+
+    private static String majorOf(Student student) {
+        return student.getMajor() == null ? "" : student.getMajor();
+    }
+
+    private static final class Fill {
+        private final Course course;
+        private final long sequence;
+        // Guarded by this fill's monitor; ranked is what lock-free readers see
+        private int enrolled;
+        private int capacity;
+        private long versions;
+        private volatile Ranked ranked;
+
+        Fill(Course course, long sequence) {
+            this.course = course;
+            this.sequence = sequence;
+        }
+    }
+
+    // One immutable ranking entry: a course's fill at one moment
+    private static final class Ranked {
+        private final double ratio;
+        private final String courseId;
+        private final long sequence;
+        private final long version;
+        private final CourseFill fill;
+        private final Fill owner;
+
+        Ranked(CourseFill fill, Fill owner, long version) {
+            this.ratio = fill.ratio();
+            this.courseId = fill.courseId() == null ? "" : fill.courseId();
+            this.sequence = owner.sequence;
+            this.version = version;
+            this.fill = fill;
+            this.owner = owner;
+        }
+
+        // A probe for navigating the ranking, never stored in it
+        private Ranked(double ratio) {
+            this.ratio = ratio;
+            this.courseId = "";
+            this.sequence = Long.MIN_VALUE;
+            this.version = Long.MIN_VALUE;
+            this.fill = null;
+            this.owner = null;
+        }
+
+        // Capacity 0 counts as full, matching CourseFill.ratio
+        boolean full() {
+            return ratio >= 1.0;
+        }
+    }
+
+    private static final class CountedMajor {
+        private String major;
+        private long enrollments;
+
+        CountedMajor(String major) {
+            this.major = major;
+        }
+    }
+}
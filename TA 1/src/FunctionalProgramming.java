@@ -1,11 +1,13 @@
 // Functional Programming Approach
 // Using immutable data structures and pure functions
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 record StudentRecord(String id, String name, String email, String major, List<String> enrolledCourseIds) {}
 record ProfessorRecord(String id, String name, String email, String department, List<String> taughtCourseIds) {}
@@ -18,20 +20,12 @@ class EnrollmentService {
             StudentRecord student) {
 
         if (isEnrollmentValid(course, student)) {
-            List<String> newEnrolledStudents = new ArrayList<>(course.enrolledStudentIds());
-            newEnrolledStudents.add(student.id());
-
-            return Optional.of(new CourseRecord(
-                    course.courseId(),
-                    course.name(),
-                    course.professorId(),
-                    newEnrolledStudents,
-                    course.maxCapacity()
-            ));
+            return Optional.of(withStudent(course, student));
         }
         return Optional.empty();
     }
 
+    // O(1) once the roster is a PersistentRoster, which every record built here holds
     public static boolean isEnrollmentValid(CourseRecord course, StudentRecord student) {
         return course.enrolledStudentIds().size() < course.maxCapacity() &&
                 !course.enrolledStudentIds().contains(student.id());
@@ -42,6 +36,20 @@ class EnrollmentService {
         return course -> isEnrollmentValid(course, student) ?
                 enrollStudent(course, student) : Optional.empty();
     }
+
+    private static CourseRecord withStudent(CourseRecord course, StudentRecord student) {
+        // Structural sharing: the old record keeps its roster, the new one only adds a path
+        List<String> newEnrolledStudents = PersistentRoster.from(course.enrolledStudentIds())
+                .append(student.id());
+
+        return new CourseRecord(
+                course.courseId(),
+                course.name(),
+                course.professorId(),
+                newEnrolledStudents,
+                course.maxCapacity()
+        );
+    }
 }
 
 // Example usage of FP approach with streams and immutable data
@@ -51,12 +59,18 @@ class EnrollmentProcessor {
             List<StudentRecord> students,
             List<String> enrollmentRequests) {
 
+        // Requests and student course lists are indexed once, so every check below is a hash probe
+        Set<String> requested = new HashSet<>(enrollmentRequests);
+        List<PersistentRoster> studentCourses = students.stream()
+                .map(student -> PersistentRoster.from(student.enrolledCourseIds()))
+                .collect(Collectors.toList());
+
         return courses.stream()
-                .map(course -> enrollmentRequests.stream()
-                        .filter(req -> req.equals(course.courseId()))
-                        .findFirst()
-                        .flatMap(req -> students.stream()
-                                .filter(student -> !student.enrolledCourseIds().contains(req))
+                .map(course -> Optional.of(course.courseId())
+                        .filter(requested::contains)
+                        .flatMap(req -> IntStream.range(0, students.size())
+                                .filter(i -> !studentCourses.get(i).contains(req))
+                                .mapToObj(students::get)
                                 .findFirst()
                                 .flatMap(student -> EnrollmentService.enrollStudent(course, student)))
                         .orElse(course))
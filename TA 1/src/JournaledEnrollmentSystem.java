@@ -0,0 +1,152 @@
+// Durable enrollment on top of EnrollmentJournal
+// A change is acknowledged only once its journal entry is synced, and memory never keeps a change
+// the journal failed to take: drops and assignments are logged before they are applied, and an
+// enrollment, whose seat claim must happen first, is undone if logging it fails
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class JournaledEnrollmentSystem {
+    private final EnrollmentSystem system;
+    private final EnrollmentJournal journal;
+
+    public JournaledEnrollmentSystem(EnrollmentSystem system, EnrollmentJournal journal) {
+        this.system = system;
+        this.journal = journal;
+    }
+
+    // The seat is claimed first so capacity is decided exactly once. If the append or the sync
+    // fails the seat is given back, and a compensating drop covers an entry that did get written.
+    // The student's lock is held throughout, as in dropStudent, so no drop can log itself between
+    // the claim and the ENROLL entry
+    public boolean enrollStudent(Student student, Course course) throws IOException {
+        synchronized (student) {
+            if (!system.enrollStudent(student, course)) {
+                return false;
+            }
+            try {
+                journal.appendAndSync(JournalEventType.ENROLL, student.getId(), course.getCourseId());
+            } catch (IOException | RuntimeException e) {
+                student.dropCourse(course);
+                try {
+                    journal.append(JournalEventType.DROP, student.getId(), course.getCourseId());
+                } catch (IOException | RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    // Logged before it is applied; the student's lock keeps the enrollment from changing in between
+    public boolean dropStudent(Student student, Course course) throws IOException {
+        synchronized (student) {
+            if (!student.isEnrolledIn(course)) {
+                return false;
+            }
+            journal.appendAndSync(JournalEventType.DROP, student.getId(), course.getCourseId());
+            return student.dropCourse(course);
+        }
+    }
+
+    public void assignProfessor(Professor professor, Course course) throws IOException {
+        journal.appendAndSync(JournalEventType.ASSIGN_PROFESSOR, professor.getId(), course.getCourseId());
+        professor.assignCourse(course);
+    }
+}
+
+// Replays into the OOP model; ids missing from the maps are skipped
+class CourseReplayTarget implements JournalReplayTarget {
+    private final Map<String, Course> courses;
+    private final Map<String, Student> students;
+    private final Map<String, Professor> professors;
+
+    public CourseReplayTarget(Map<String, Course> courses, Map<String, Student> students,
+                              Map<String, Professor> professors) {
+        this.courses = courses;
+        this.students = students;
+        this.professors = professors;
+    }
+
+    @Override
+    public void onEnroll(String studentId, String courseId) {
+        Student student = students.get(studentId);
+        Course course = courses.get(courseId);
+        if (student != null && course != null) {
+            student.enrollInCourse(course);
+        }
+    }
+
+    @Override
+    public void onDrop(String studentId, String courseId) {
+        Student student = students.get(studentId);
+        Course course = courses.get(courseId);
+        if (student != null && course != null) {
+            student.dropCourse(course);
+        }
+    }
+
+    @Override
+    public void onAssignProfessor(String professorId, String courseId) {
+        Professor professor = professors.get(professorId);
+        Course course = courses.get(courseId);
+        if (professor != null && course != null) {
+            professor.assignCourse(course);
+        }
+    }
+}
+
+// Replays into the FP model, building one new CourseRecord per course at the end
+class CourseRecordReplayTarget implements JournalReplayTarget {
+    private final Map<String, CourseRecord> base = new LinkedHashMap<>();
+    private final Map<String, Set<String>> rosters = new LinkedHashMap<>();
+    private final Map<String, String> professorIds = new LinkedHashMap<>();
+
+    public CourseRecordReplayTarget(List<CourseRecord> courses) {
+        for (CourseRecord course : courses) {
+            base.put(course.courseId(), course);
+            rosters.put(course.courseId(), new LinkedHashSet<>(course.enrolledStudentIds()));
+        }
+    }
+
+    @Override
+    public void onEnroll(String studentId, String courseId) {
+        Set<String> roster = rosters.get(courseId);
+        if (roster != null && roster.size() < base.get(courseId).maxCapacity()) {
+            roster.add(studentId);
+        }
+    }
+
+    @Override
+    public void onDrop(String studentId, String courseId) {
+        Set<String> roster = rosters.get(courseId);
+        if (roster != null) {
+            roster.remove(studentId);
+        }
+    }
+
+    @Override
+    public void onAssignProfessor(String professorId, String courseId) {
+        if (base.containsKey(courseId)) {
+            professorIds.put(courseId, professorId);
+        }
+    }
+
+    public List<CourseRecord> courses() {
+        List<CourseRecord> result = new ArrayList<>(base.size());
+        base.forEach((courseId, course) -> result.add(new CourseRecord(
+                courseId,
+                course.name(),
+                professorIds.getOrDefault(courseId, course.professorId()),
+                PersistentRoster.from(rosters.get(courseId)),
+                course.maxCapacity()
+        )));
+        return result;
+    }
+}
@@ -3,7 +3,10 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 // Abstract base class demonstrating abstraction
 abstract class Person {
@@ -48,15 +51,41 @@ class Student extends Person {
     @Override
     public String getRole() { return "STUDENT"; }
 
-    public void enrollInCourse(Course course) {
-        if (course.hasAvailableSeats()) {
+    // The course claims the seat first, so a full course never ends up in the list.
+    // Synchronized per student, so concurrent enrollments don't share a global lock.
+    public synchronized boolean enrollInCourse(Course course) {
+        if (course.addStudent(this)) {
             enrolledCourses.add(course);
-            course.addStudent(this);
+            return true;
         }
+        return false;
     }
 
-    public List<Course> getEnrolledCourses() {
-        return new ArrayList<>(enrolledCourses);
+    // Confirms a seat the course already reserved for this student, e.g. through a seat hold
+    public synchronized boolean enrollInClaimedSeat(ConcurrentCourse course) {
+        if (course.fillClaimedSeat(this)) {
+            enrolledCourses.add(course);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean dropCourse(Course course) {
+        if (course.removeStudent(this)) {
+            enrolledCourses.remove(course);
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized boolean isEnrolledIn(Course course) {
+        return enrolledCourses.contains(course);
+    }
+
+    // A snapshot taken under the student's lock, since enrollInCourse/dropCourse may run concurrently.
+    // For allocation-free reads use EnrollmentIndex.coursesOf
+    public synchronized List<Course> getEnrolledCourses() {
+        return List.copyOf(enrolledCourses);
     }
 
     public String getMajor() {
@@ -101,10 +130,14 @@ class Course {
     private String name;
     private Professor professor;
     private final List<Student> enrolledStudents;
+    private final List<Student> enrolledStudentsView;
+    private final List<CourseListener> listeners = new CopyOnWriteArrayList<>();
     private int maxCapacity;
+    private List<MeetingTime> meetingTimes = List.of();
 
+    // Callers get a read-only view; enrollment goes through addStudent/removeStudent
     public List<Student> getEnrolledStudents() {
-        return enrolledStudents;
+        return enrolledStudentsView;
     }
 
     public Course(String courseId, String name, int maxCapacity) {
@@ -112,21 +145,57 @@ class Course {
         this.name = name;
         this.maxCapacity = maxCapacity;
         this.enrolledStudents = new ArrayList<>();
-
+        this.enrolledStudentsView = Collections.unmodifiableList(enrolledStudents);
     }
 
     public boolean hasAvailableSeats() {
         return enrolledStudents.size() < maxCapacity;
     }
 
-    public void addStudent(Student student) {
+    public boolean addStudent(Student student) {
         if (hasAvailableSeats()) {
             enrolledStudents.add(student);
+            notifyStudentAdded(student);
+            return true;
         }
+        return false;
+    }
+
+    public boolean removeStudent(Student student) {
+        if (enrolledStudents.remove(student)) {
+            notifyStudentRemoved(student);
+            return true;
+        }
+        return false;
     }
 
     public void setProfessor(Professor professor) {
+        Professor previous = this.professor;
         this.professor = professor;
+        for (CourseListener listener : listeners) {
+            listener.onProfessorAssigned(this, previous, professor);
+        }
+    }
+
+    // Observer registration, used by indexes that must follow changes to this course
+    public void addListener(CourseListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CourseListener listener) {
+        listeners.remove(listener);
+    }
+
+    protected void notifyStudentAdded(Student student) {
+        for (CourseListener listener : listeners) {
+            listener.onStudentAdded(this, student);
+        }
+    }
+
+    protected void notifyStudentRemoved(Student student) {
+        for (CourseListener listener : listeners) {
+            listener.onStudentRemoved(this, student);
+        }
     }
 
     public String getCourseId() {
@@ -134,7 +203,11 @@ class Course {
     }
 
     public void setCourseId(String courseId) {
+        String previous = this.courseId;
         this.courseId = courseId;
+        for (CourseListener listener : listeners) {
+            listener.onCourseIdChanged(this, previous, courseId);
+        }
     }
 
     public String getName() {
@@ -142,7 +215,11 @@ class Course {
     }
 
     public void setName(String name) {
+        String previous = this.name;
         this.name = name;
+        for (CourseListener listener : listeners) {
+            listener.onNameChanged(this, previous, name);
+        }
     }
 
     public Professor getProfessor() {
@@ -154,10 +231,43 @@ class Course {
     }
 
     public void setMaxCapacity(int maxCapacity) {
+        int previous = this.maxCapacity;
         this.maxCapacity = maxCapacity;
+        for (CourseListener listener : listeners) {
+            listener.onCapacityChanged(this, previous, maxCapacity);
+        }
+    }
+
+    public List<MeetingTime> getMeetingTimes() {
+        return meetingTimes;
+    }
+
+    public void setMeetingTimes(List<MeetingTime> meetingTimes) {
+        List<MeetingTime> previous = this.meetingTimes;
+        this.meetingTimes = List.copyOf(meetingTimes);
+        for (CourseListener listener : listeners) {
+            listener.onMeetingTimesChanged(this, previous, this.meetingTimes);
+        }
     }
 }
 
+// Observer interface for changes to a Course; implement only what you need
+interface CourseListener {
+    default void onStudentAdded(Course course, Student student) {}
+
+    default void onStudentRemoved(Course course, Student student) {}
+
+    default void onProfessorAssigned(Course course, Professor previous, Professor current) {}
+
+    default void onCapacityChanged(Course course, int previous, int current) {}
+
+    default void onMeetingTimesChanged(Course course, List<MeetingTime> previous, List<MeetingTime> current) {}
+
+    default void onNameChanged(Course course, String previous, String current) {}
+
+    default void onCourseIdChanged(Course course, String previous, String current) {}
+}
+
 // Polymorphism demonstrated through interface
 interface EnrollmentValidator {
     boolean validateEnrollment(Student student, Course course);
@@ -171,33 +281,64 @@ class CapacityValidator implements EnrollmentValidator {
     }
 }
 
-class PrerequisiteValidator implements EnrollmentValidator {
+class PrerequisiteValidator implements StudentScopedValidator {
+    private final PrerequisiteGraph graph;
+
+    // No prerequisite data means every enrollment passes
+    public PrerequisiteValidator() {
+        this(new PrerequisiteGraph());
+    }
+
+    public PrerequisiteValidator(PrerequisiteGraph graph) {
+        this.graph = graph;
+    }
+
     @Override
     public boolean validateEnrollment(Student student, Course course) {
-        // Check prerequisites logic
-        return true;
+        // Check prerequisites logic: a bitset test against the precomputed closure
+        return graph.isSatisfied(student.getId(), course.getCourseId());
+    }
+
+    @Override
+    public long studentVersion(Student student) {
+        return graph.versionOf(student.getId());
+    }
+
+    public PrerequisiteGraph getGraph() {
+        return graph;
     }
 }
 
 class EnrollmentSystem {
-    private final List<EnrollmentValidator> validators;
+    private final ValidatorPipeline validators;
 
     public EnrollmentSystem() {
-        validators = Arrays.asList(
+        this(Arrays.asList(
             new CapacityValidator(),
             new PrerequisiteValidator()
-        );
+        ));
     }
 
+    public EnrollmentSystem(List<EnrollmentValidator> validators) {
+        this.validators = new ValidatorPipeline(validators);
+    }
+
+    // Validation and the seat claim run under the student's monitor, which enrollInCourse and
+    // dropCourse also take, so checks on the student's own schedule (time conflicts, prerequisites)
+    // still hold when the seat is claimed. Course-side checks stay a pre-check: the claim decides
     public boolean enrollStudent(Student student, Course course) {
-        // Using polymorphism to validate enrollment
-        boolean isValid = validators.stream()
-            .allMatch(validator -> validator.validateEnrollment(student, course));
-        
-        if (isValid) {
-            student.enrollInCourse(course);
-            return true;
+        synchronized (student) {
+            // Using polymorphism to validate enrollment
+            boolean isValid = validators.validateEnrollment(student, course);
+            return isValid && student.enrollInCourse(course);
         }
-        return false;
+    }
+
+    public Map<Course, Boolean> validateAll(Student student, List<Course> courses) {
+        return validators.validateAll(student, courses);
+    }
+
+    public ValidatorPipeline getValidatorPipeline() {
+        return validators;
     }
 }
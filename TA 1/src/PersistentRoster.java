@@ -0,0 +1,210 @@
+// Roster list with built-in membership for the FP records
+// Ids are interned to dense ints, and every roster version carries its own persistent int set,
+// so contains() is O(1) on any version and older versions keep answering for themselves.
+// The interner belongs to one roster family, so its ids are freed along with the family's last roster
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Maps string ids to dense ints 0, 1, 2, ... in first-seen order. Safe for concurrent use;
+// a key never changes once assigned, so sharing one interner between versions is harmless
+class IdInterner {
+    private final ConcurrentHashMap<String, Integer> keys = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public int intern(String id) {
+        Integer key = keys.get(id);
+        return key != null ? key : keys.computeIfAbsent(id, k -> next.getAndIncrement());
+    }
+
+    // Returns -1 for ids that were never interned
+    public int keyOf(String id) {
+        Integer key = keys.get(id);
+        return key == null ? -1 : key;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
+
+// Persistent set of ints: a hash array mapped trie with keys stored inline as ints.
+// add copies one path, so every earlier version stays valid and unchanged
+final class PersistentIntSet {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    static final PersistentIntSet EMPTY = new PersistentIntSet(Node.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntSet(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public boolean contains(int key) {
+        return root.contains(key, mix(key), 0);
+    }
+
+    public PersistentIntSet add(int key) {
+        Node added = root.add(key, mix(key), 0);
+        return added == root ? this : new PersistentIntSet(added, size + 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // A bijection on int, so two distinct keys always differ somewhere in their hash bits
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Keys that own their hash fragment sit in keys[], keys that share one move down into nodes[]
+    private static final class Node {
+        static final Node EMPTY = new Node(0, new int[0], 0, new Node[0]);
+
+        private final int keyMap;
+        private final int[] keys;
+        private final int nodeMap;
+        private final Node[] nodes;
+
+        Node(int keyMap, int[] keys, int nodeMap, Node[] nodes) {
+            this.keyMap = keyMap;
+            this.keys = keys;
+            this.nodeMap = nodeMap;
+            this.nodes = nodes;
+        }
+
+        boolean contains(int key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((keyMap & bit) != 0) {
+                return keys[slot(keyMap, bit)] == key;
+            }
+            return (nodeMap & bit) != 0 && nodes[slot(nodeMap, bit)].contains(key, hash, shift + BITS);
+        }
+
+        Node add(int key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((keyMap & bit) != 0) {
+                int at = slot(keyMap, bit);
+                int existing = keys[at];
+                if (existing == key) {
+                    return this;
+                }
+                // Two keys share this fragment: push both one level down
+                Node pair = pair(existing, mix(existing), key, hash, shift + BITS);
+                int[] newKeys = new int[keys.length - 1];
+                System.arraycopy(keys, 0, newKeys, 0, at);
+                System.arraycopy(keys, at + 1, newKeys, at, keys.length - at - 1);
+                return new Node(keyMap ^ bit, newKeys, nodeMap | bit, insert(nodes, slot(nodeMap, bit), pair));
+            }
+            if ((nodeMap & bit) != 0) {
+                int at = slot(nodeMap, bit);
+                Node child = nodes[at].add(key, hash, shift + BITS);
+                if (child == nodes[at]) {
+                    return this;
+                }
+                Node[] newNodes = nodes.clone();
+                newNodes[at] = child;
+                return new Node(keyMap, keys, nodeMap, newNodes);
+            }
+            int at = slot(keyMap, bit);
+            int[] newKeys = new int[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            newKeys[at] = key;
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            return new Node(keyMap | bit, newKeys, nodeMap, nodes);
+        }
+
+        private static Node pair(int a, int hashA, int b, int hashB, int shift) {
+            int fragA = (hashA >>> shift) & MASK;
+            int fragB = (hashB >>> shift) & MASK;
+            if (fragA == fragB) {
+                return new Node(0, new int[0], 1 << fragA, new Node[]{pair(a, hashA, b, hashB, shift + BITS)});
+            }
+            int[] both = fragA < fragB ? new int[]{a, b} : new int[]{b, a};
+            return new Node((1 << fragA) | (1 << fragB), both, 0, new Node[0]);
+        }
+
+        private static Node[] insert(Node[] nodes, int at, Node node) {
+            Node[] copy = Arrays.copyOf(nodes, nodes.length + 1);
+            System.arraycopy(nodes, at, copy, at + 1, nodes.length - at);
+            copy[at] = node;
+            return copy;
+        }
+
+        private static int slot(int map, int bit) {
+            return Integer.bitCount(map & (bit - 1));
+        }
+    }
+}
+
+// The roster a CourseRecord (or StudentRecord) holds: ids in enrollment order plus a membership
+// set over their interned keys. Both halves are persistent, so this is what older-version
+// validity and O(1) duplicate checks both rely on. A family is every roster appended from one
+// empty() or from() call; they share one interner, which only ever holds the family's own ids
+final class PersistentRoster extends AbstractList<String> implements RandomAccess {
+    private final IdInterner keys;
+    private final PersistentVector<String> ids;
+    private final PersistentIntSet members;
+
+    private PersistentRoster(IdInterner keys, PersistentVector<String> ids, PersistentIntSet members) {
+        this.keys = keys;
+        this.ids = ids;
+        this.members = members;
+    }
+
+    // Starts a new family
+    public static PersistentRoster empty() {
+        return new PersistentRoster(new IdInterner(), PersistentVector.empty(), PersistentIntSet.EMPTY);
+    }
+
+    // Reuses the argument when it is already a roster, otherwise copies it once into a new family
+    public static PersistentRoster from(Collection<String> ids) {
+        if (ids instanceof PersistentRoster roster) {
+            return roster;
+        }
+        PersistentRoster roster = empty();
+        for (String id : ids) {
+            roster = roster.append(id);
+        }
+        return roster;
+    }
+
+    public PersistentRoster append(String id) {
+        return new PersistentRoster(keys, ids.append(id), members.add(keys.intern(id)));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String id)) {
+            return false;
+        }
+        int key = keys.keyOf(id);
+        return key >= 0 && members.contains(key);
+    }
+
+    @Override
+    public String get(int index) {
+        return ids.get(index);
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return ids.iterator();
+    }
+}
@@ -0,0 +1,222 @@
+// Course prerequisite graph with a precomputed transitive closure
+// Each course's full prerequisite set and each student's completed courses are bitsets,
+// so a prerequisite check is one AND-NOT per 64 courses and never walks the graph
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+
+class PrerequisiteGraph {
+    private static final long[] NONE = new long[0];
+
+    // Course ids map to dense bit positions in first-seen order
+    private final Map<String, Integer> keys = new ConcurrentHashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    // closure[c] holds every course c requires, directly or transitively.
+    // Rows are never changed in place: writers publish new arrays, so readers need no lock
+    private volatile long[][] closure = new long[0][];
+    // dependents[c] holds every course that requires c; only writers read it
+    private long[][] dependents = new long[0][];
+    private final Map<String, Completed> completedByStudent = new ConcurrentHashMap<>();
+    // Bumped whenever a new edge changes some closure, so cached answers can tell they are stale
+    private volatile long structureVersion;
+
+    // A student's completed courses and how many times that set has changed
+    private record Completed(long[] bits, long version) {
+        static final Completed NOTHING = new Completed(NONE, 0);
+    }
+
+    // One line per course: "CS201: CS101, MATH101". Blank lines and # comments are skipped
+    public static PrerequisiteGraph parse(List<String> lines) {
+        PrerequisiteGraph graph = new PrerequisiteGraph();
+        for (String raw : lines) {
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Expected 'course: prerequisites' but got: " + raw);
+            }
+            String courseId = line.substring(0, colon).strip();
+            graph.addCourse(courseId);
+            for (String prerequisite : line.substring(colon + 1).split(",")) {
+                if (!prerequisite.isBlank()) {
+                    graph.addPrerequisite(courseId, prerequisite.strip());
+                }
+            }
+        }
+        return graph;
+    }
+
+    public static PrerequisiteGraph load(Path file) throws IOException {
+        return parse(Files.readAllLines(file));
+    }
+
+    public synchronized void addCourse(String courseId) {
+        keyFor(courseId);
+    }
+
+    // Adds "course requires prerequisite" and folds it into the closure of the course and of
+    // everything that already depends on it. Returns false if the edge was already implied
+    public synchronized boolean addPrerequisite(String courseId, String prerequisiteId) {
+        int course = keyFor(courseId);
+        int prerequisite = keyFor(prerequisiteId);
+        long[][] rows = closure;
+        if (course == prerequisite || has(rows[prerequisite], course)) {
+            throw new IllegalArgumentException("Prerequisite cycle: " + prerequisiteId + " already requires " + courseId);
+        }
+        if (has(rows[course], prerequisite)) {
+            return false;
+        }
+
+        long[] required = with(rows[prerequisite], prerequisite);
+        long[] affected = with(dependents[course], course);
+        long[][] next = rows.clone();
+        forEach(affected, c -> next[c] = or(next[c], required));
+        forEach(required, p -> dependents[p] = or(dependents[p], affected));
+        closure = next;
+        structureVersion++;
+        return true;
+    }
+
+    public void recordCompletion(String studentId, String courseId) {
+        int course = keyOf(courseId);
+        if (course < 0) {
+            synchronized (this) {
+                course = keyFor(courseId);
+            }
+        }
+        int bit = course;
+        completedByStudent.compute(studentId, (id, completed) -> completed == null
+                ? new Completed(with(NONE, bit), 1)
+                : has(completed.bits(), bit) ? completed : new Completed(with(completed.bits(), bit), completed.version() + 1));
+    }
+
+    // Changes whenever an isSatisfied answer for this student may change: on a new completion
+    // of theirs or on any new edge. Read it before checking, so a racing change reads as stale
+    public long versionOf(String studentId) {
+        long completions = completedByStudent.getOrDefault(studentId, Completed.NOTHING).version();
+        return structureVersion << 32 | (completions & 0xFFFFFFFFL);
+    }
+
+    // True when every direct and transitive prerequisite of the course is completed.
+    // Courses the graph has never seen have no prerequisites
+    public boolean isSatisfied(String studentId, String courseId) {
+        int course = keyOf(courseId);
+        if (course < 0) {
+            return true;
+        }
+        long[] required = closure[course];
+        long[] completed = completedByStudent.getOrDefault(studentId, Completed.NOTHING).bits();
+        for (int w = 0; w < required.length; w++) {
+            if ((required[w] & ~word(completed, w)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<String> missingPrerequisites(String studentId, String courseId) {
+        int course = keyOf(courseId);
+        List<String> missing = new ArrayList<>();
+        if (course < 0) {
+            return missing;
+        }
+        long[] completed = completedByStudent.getOrDefault(studentId, Completed.NOTHING).bits();
+        forEach(closure[course], p -> {
+            if (!has(completed, p)) {
+                missing.add(idOf(p));
+            }
+        });
+        return missing;
+    }
+
+    public List<String> prerequisitesOf(String courseId) {
+        int course = keyOf(courseId);
+        List<String> required = new ArrayList<>();
+        if (course >= 0) {
+            forEach(closure[course], p -> required.add(idOf(p)));
+        }
+        return required;
+    }
+
+    public boolean requires(String courseId, String prerequisiteId) {
+        int course = keyOf(courseId);
+        int prerequisite = keyOf(prerequisiteId);
+        return course >= 0 && prerequisite >= 0 && has(closure[course], prerequisite);
+    }
+
+    public int courseCount() {
+        return keys.size();
+    }
+
+    private int keyOf(String courseId) {
+        Integer key = keys.get(courseId);
+        return key == null ? -1 : key;
+    }
+
+    private synchronized String idOf(int key) {
+        return ids.get(key);
+    }
+
+    // Callers hold the lock. The new row is published before the key, so a reader that finds
+    // the key always finds its row
+    private int keyFor(String courseId) {
+        Integer existing = keys.get(courseId);
+        if (existing != null) {
+            return existing;
+        }
+        int key = ids.size();
+        ids.add(courseId);
+        long[][] rows = closure;
+        if (key == rows.length) {
+            long[][] grown = Arrays.copyOf(rows, Math.max(8, rows.length * 2));
+            Arrays.fill(grown, rows.length, grown.length, NONE);
+            closure = grown;
+            long[][] reverse = Arrays.copyOf(dependents, grown.length);
+            Arrays.fill(reverse, dependents.length, reverse.length, NONE);
+            dependents = reverse;
+        }
+        keys.put(courseId, key);
+        return key;
+    }
+
+    // Bitset helpers over long[] rows; missing words count as zero, and results are new arrays
+
+    private static long word(long[] bits, int w) {
+        return w < bits.length ? bits[w] : 0;
+    }
+
+    private static boolean has(long[] bits, int bit) {
+        return (word(bits, bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    private static long[] with(long[] bits, int bit) {
+        long[] copy = Arrays.copyOf(bits, Math.max(bits.length, (bit >>> 6) + 1));
+        copy[bit >>> 6] |= 1L << bit;
+        return copy;
+    }
+
+    private static long[] or(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int w = 0; w < b.length; w++) {
+            result[w] |= b[w];
+        }
+        return result;
+    }
+
+    private static void forEach(long[] bits, IntConsumer action) {
+        for (int w = 0; w < bits.length; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+// Lazy query engine over the FP records
+// Queries are built from filter, project, join and group-by steps and only run on a terminal call.
+// Column conditions on a table are pushed down into its hash or sorted indexes; without a usable
+// index a large table is scanned with a parallel stream
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// A named field of a record; tables index columns by name
+record Column<T, V>(String name, Function<T, V> getter) {
+    public V of(T row) {
+        return getter.apply(row);
+    }
+}
+
+// The columns of the FP records that queries usually filter, join or group on
+final class RecordColumns {
+    public static final Column<StudentRecord, String> STUDENT_ID = new Column<>("id", StudentRecord::id);
+    public static final Column<StudentRecord, String> STUDENT_MAJOR = new Column<>("major", StudentRecord::major);
+    public static final Column<CourseRecord, String> COURSE_ID = new Column<>("courseId", CourseRecord::courseId);
+    public static final Column<CourseRecord, String> COURSE_PROFESSOR =
+            new Column<>("professorId", CourseRecord::professorId);
+    public static final Column<CourseRecord, Integer> COURSE_CAPACITY =
+            new Column<>("maxCapacity", CourseRecord::maxCapacity);
+    public static final Column<CourseRecord, Integer> COURSE_ENROLLED =
+            new Column<>("enrolled", course -> course.enrolledStudentIds().size());
+    public static final Column<ProfessorRecord, String> PROFESSOR_ID = new Column<>("id", ProfessorRecord::id);
+    public static final Column<ProfessorRecord, String> PROFESSOR_DEPARTMENT =
+            new Column<>("department", ProfessorRecord::department);
+
+    private RecordColumns() {}
+
+    public static boolean isFull(CourseRecord course) {
+        return course.enrolledStudentIds().size() >= course.maxCapacity();
+    }
+}
+
+// A filter the planner can see into. Opaque predicates are allowed but never use an index
+interface Condition<T> extends Predicate<T> {
+    static <T, V> Condition<T> eq(Column<T, V> column, V value) {
+        return new Equals<>(column, value);
+    }
+
+    // Inclusive on both ends
+    static <T, V extends Comparable<? super V>> Condition<T> between(Column<T, V> column, V from, V to) {
+        return new Range<>(column, from, to);
+    }
+
+    static <T> Condition<T> of(Predicate<? super T> predicate) {
+        return predicate::test;
+    }
+
+    record Equals<T, V>(Column<T, V> column, V value) implements Condition<T> {
+        @Override
+        public boolean test(T row) {
+            return Objects.equals(column.of(row), value);
+        }
+    }
+
+    record Range<T, V extends Comparable<? super V>>(Column<T, V> column, V from, V to) implements Condition<T> {
+        @Override
+        public boolean test(T row) {
+            V value = column.of(row);
+            return value != null && value.compareTo(from) >= 0 && value.compareTo(to) <= 0;
+        }
+
+        public boolean isEmpty() {
+            return from.compareTo(to) > 0;
+        }
+    }
+}
+
+// Immutable rows plus the indexes declared on them. Indexes are built once, when declared
+class RecordTable<T> {
+    static final int PARALLEL_THRESHOLD = 10_000;
+
+    private final List<T> rows;
+    private final Map<String, Map<Object, List<T>>> hashIndexes = new HashMap<>();
+    private final Map<String, NavigableMap<Object, List<T>>> sortedIndexes = new HashMap<>();
+
+    public RecordTable(Collection<T> rows) {
+        this.rows = List.copyOf(rows);
+    }
+
+    public RecordTable<T> withHashIndex(Column<T, ?> column) {
+        Map<Object, List<T>> index = new HashMap<>();
+        for (T row : rows) {
+            index.computeIfAbsent(column.of(row), k -> new ArrayList<>()).add(row);
+        }
+        hashIndexes.put(column.name(), index);
+        return this;
+    }
+
+    public <V extends Comparable<? super V>> RecordTable<T> withSortedIndex(Column<T, V> column) {
+        NavigableMap<Object, List<T>> index = new TreeMap<>();
+        for (T row : rows) {
+            V key = column.of(row);
+            if (key != null) {
+                index.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            }
+        }
+        sortedIndexes.put(column.name(), index);
+        return this;
+    }
+
+    public TableQuery<T> query() {
+        return new TableQuery<>(this, List.of());
+    }
+
+    // Equality lookup: one hash probe when the column is indexed, otherwise a scan
+    public List<T> lookup(Column<T, ?> column, Object value) {
+        Map<Object, List<T>> index = hashIndexes.get(column.name());
+        if (index != null) {
+            return index.getOrDefault(value, List.of());
+        }
+        return rows.stream().filter(row -> Objects.equals(column.of(row), value)).toList();
+    }
+
+    public boolean hasHashIndex(Column<T, ?> column) {
+        return hashIndexes.containsKey(column.name());
+    }
+
+    public List<T> rows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    // Picks the indexed condition with the fewest matching rows as the access path,
+    // and applies every other condition as a filter on top of it
+    AccessPath<T> plan(List<Condition<T>> conditions) {
+        Condition<T> chosen = null;
+        Collection<List<T>> candidates = null;
+        long cheapest = Long.MAX_VALUE;
+        for (Condition<T> condition : conditions) {
+            Collection<List<T>> match = indexMatch(condition);
+            if (match != null) {
+                long size = match.stream().mapToLong(List::size).sum();
+                if (size < cheapest) {
+                    cheapest = size;
+                    chosen = condition;
+                    candidates = match;
+                }
+            }
+        }
+        List<Condition<T>> residual = new ArrayList<>(conditions);
+        residual.remove(chosen);
+        if (chosen == null) {
+            String access = rows.size() >= PARALLEL_THRESHOLD ? "parallel scan" : "scan";
+            return new AccessPath<>(access + " of " + rows.size() + " rows", rows, residual);
+        }
+        List<T> matched = candidates.size() == 1 ? candidates.iterator().next() : new ArrayList<>((int) cheapest);
+        if (candidates.size() > 1) {
+            candidates.forEach(matched::addAll);
+        }
+        return new AccessPath<>("index on " + columnOf(chosen) + " (" + cheapest + " rows)", matched, residual);
+    }
+
+    private Collection<List<T>> indexMatch(Condition<T> condition) {
+        if (condition instanceof Condition.Equals<T, ?> equals) {
+            Map<Object, List<T>> index = hashIndexes.get(equals.column().name());
+            if (index != null) {
+                return List.of(index.getOrDefault(equals.value(), List.of()));
+            }
+            NavigableMap<Object, List<T>> sorted = sortedIndexes.get(equals.column().name());
+            if (sorted != null && equals.value() != null) {
+                return List.of(sorted.getOrDefault(equals.value(), List.of()));
+            }
+        } else if (condition instanceof Condition.Range<T, ?> range) {
+            NavigableMap<Object, List<T>> sorted = sortedIndexes.get(range.column().name());
+            if (sorted != null) {
+                return range.isEmpty() ? List.of()
+                        : sorted.subMap(range.from(), true, range.to(), true).values();
+            }
+        }
+        return null;
+    }
+
+    private static String columnOf(Condition<?> condition) {
+        return condition instanceof Condition.Equals<?, ?> e ? e.column().name()
+                : ((Condition.Range<?, ?>) condition).column().name();
+    }
+
+    record AccessPath<T>(String description, List<T> rows, List<Condition<T>> residual) {
+        Stream<T> open() {
+            Stream<T> stream = rows.size() >= PARALLEL_THRESHOLD ? rows.parallelStream() : rows.stream();
+            for (Condition<T> condition : residual) {
+                stream = stream.filter(condition);
+            }
+            return stream;
+        }
+    }
+}
+
+// A lazy pipeline: nothing runs until list/count/first/groupBy/stream is called,
+// and every terminal call runs it again against the current source
+class Query<T> {
+    private final Supplier<Stream<T>> source;
+    private final Supplier<String> plan;
+
+    Query(Supplier<Stream<T>> source, Supplier<String> plan) {
+        this.source = source;
+        this.plan = plan;
+    }
+
+    public Query<T> where(Predicate<? super T> predicate) {
+        return new Query<>(() -> source.get().filter(predicate), () -> plan.get() + " -> filter");
+    }
+
+    public <R> Query<R> select(Function<? super T, ? extends R> projection) {
+        return new Query<>(() -> source.get().map(projection), () -> plan.get() + " -> project");
+    }
+
+    // Probes the right table's hash index per row when it has one; otherwise hashes the
+    // right table once per run and probes that
+    public <U, K, R> Query<R> join(RecordTable<U> right, Function<? super T, K> key, Column<U, K> rightColumn,
+                                   BiFunction<? super T, ? super U, ? extends R> combine) {
+        if (right.hasHashIndex(rightColumn)) {
+            return new Query<>(() -> source.get().flatMap(left ->
+                    right.lookup(rightColumn, key.apply(left)).stream().map(r -> combine.apply(left, r))),
+                    () -> plan.get() + " -> index join on " + rightColumn.name());
+        }
+        return new Query<>(() -> {
+            Map<K, List<U>> built = right.rows().stream().collect(Collectors.groupingBy(rightColumn.getter()));
+            return source.get().flatMap(left ->
+                    built.getOrDefault(key.apply(left), List.of()).stream().map(r -> combine.apply(left, r)));
+        }, () -> plan.get() + " -> hash join on " + rightColumn.name());
+    }
+
+    public Query<T> orderBy(Comparator<? super T> order) {
+        return new Query<>(() -> source.get().sorted(order), () -> plan.get() + " -> sort");
+    }
+
+    public Query<T> limit(long count) {
+        return new Query<>(() -> source.get().limit(count), () -> plan.get() + " -> limit " + count);
+    }
+
+    public <K> Map<K, List<T>> groupBy(Function<? super T, ? extends K> key) {
+        return source.get().collect(Collectors.groupingBy(key));
+    }
+
+    public <K, D> Map<K, D> groupBy(Function<? super T, ? extends K> key, Collector<? super T, ?, D> downstream) {
+        return source.get().collect(Collectors.groupingBy(key, downstream));
+    }
+
+    public List<T> list() {
+        return source.get().toList();
+    }
+
+    public long count() {
+        return source.get().count();
+    }
+
+    public Optional<T> first() {
+        return source.get().findFirst();
+    }
+
+    public Stream<T> stream() {
+        return source.get();
+    }
+
+    // How the query would run right now, e.g. "index on major (120 rows) -> filter -> project"
+    public String explain() {
+        return plan.get();
+    }
+}
+
+// Query rooted at a table; column conditions given here are candidates for index pushdown
+class TableQuery<T> extends Query<T> {
+    private final RecordTable<T> table;
+    private final List<Condition<T>> conditions;
+
+    TableQuery(RecordTable<T> table, List<Condition<T>> conditions) {
+        super(() -> table.plan(conditions).open(), () -> describe(table.plan(conditions)));
+        this.table = table;
+        this.conditions = conditions;
+    }
+
+    public TableQuery<T> where(Condition<T> condition) {
+        List<Condition<T>> all = new ArrayList<>(conditions);
+        all.add(condition);
+        return new TableQuery<>(table, List.copyOf(all));
+    }
+
+    private static String describe(RecordTable.AccessPath<?> path) {
+        return path.description() + (path.residual().isEmpty() ? "" : " -> filter x" + path.residual().size());
+    }
+}
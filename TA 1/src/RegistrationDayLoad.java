@@ -0,0 +1,280 @@
+// Registration-day macro-benchmark for EnrollmentSystem
+// Open-loop arrivals that burst when registration opens and decay to a base rate, courses picked
+// with Zipf-distributed popularity, and a mix of enroll, waitlist and drop operations.
+// Latency is measured from each operation's scheduled arrival, so queueing under overload counts,
+// and percentiles plus rejection rates are reported per time window
+//
+// Usage: RegistrationDayLoad [key=value ...], keys as in Settings.KEYS
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Samples 0..n-1 with P(k) proportional to 1/(k+1)^exponent: course 0 is the most popular
+class ZipfDistribution {
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    public int sample(SplittableRandom random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
+
+public class RegistrationDayLoad {
+    record Settings(int courses, int capacity, int students, double zipfExponent,
+                    double enrollShare, double waitlistShare, double dropShare,
+                    double peakRate, double baseRate, double decaySeconds,
+                    int seconds, double windowSeconds, int workers) {
+
+        // Arrivals per second at t seconds after registration opens
+        double rateAt(double t) {
+            return baseRate + (peakRate - baseRate) * Math.exp(-t / decaySeconds);
+        }
+
+        static final List<String> KEYS = List.of("courses", "capacity", "students", "zipf", "enroll", "waitlist",
+                "drop", "peak", "base", "decay", "seconds", "window", "workers");
+
+        // Throws IllegalArgumentException for a malformed argument, an unknown key or a bad number
+        static Settings parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value, got \"" + arg + "\"");
+                }
+                String key = arg.substring(0, eq);
+                if (!KEYS.contains(key)) {
+                    throw new IllegalArgumentException("Unknown key \"" + key + "\"");
+                }
+                values.put(key, arg.substring(eq + 1));
+            }
+            return new Settings(
+                    Integer.parseInt(values.getOrDefault("courses", "2000")),
+                    Integer.parseInt(values.getOrDefault("capacity", "40")),
+                    Integer.parseInt(values.getOrDefault("students", "100000")),
+                    Double.parseDouble(values.getOrDefault("zipf", "1.1")),
+                    Double.parseDouble(values.getOrDefault("enroll", "0.7")),
+                    Double.parseDouble(values.getOrDefault("waitlist", "0.2")),
+                    Double.parseDouble(values.getOrDefault("drop", "0.1")),
+                    Double.parseDouble(values.getOrDefault("peak", "40000")),
+                    Double.parseDouble(values.getOrDefault("base", "4000")),
+                    Double.parseDouble(values.getOrDefault("decay", "2")),
+                    Integer.parseInt(values.getOrDefault("seconds", "10")),
+                    Double.parseDouble(values.getOrDefault("window", "1")),
+                    Integer.parseInt(values.getOrDefault("workers", "4")));
+        }
+    }
+
+    enum Operation {
+        ENROLL, WAITLIST, DROP
+    }
+
+    // Everything that happened to operations scheduled inside one time window
+    private static final class Window {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder[] issued = adders();
+        private final LongAdder[] rejected = adders();
+        private final LongAdder waitlisted = new LongAdder();
+
+        private static LongAdder[] adders() {
+            LongAdder[] adders = new LongAdder[Operation.values().length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+
+        private double rejectedPercent(Operation op) {
+            long n = issued[op.ordinal()].sum();
+            return n == 0 ? 0 : 100.0 * rejected[op.ordinal()].sum() / n;
+        }
+    }
+
+    private final Settings settings;
+    private final CourseWaitlist[] courses;
+    private final Student[] students;
+    private final EnrollmentSystem system;
+    private final ZipfDistribution popularity;
+    // Per course, the students a later DROP of that course may remove, oldest first; a drop of a
+    // course with nobody left to remove counts as rejected. Filled by a course listener, so
+    // students promoted off a waitlist are included exactly once
+    private final Queue<Student>[] droppable;
+    private final Window[] windows;
+
+    RegistrationDayLoad(Settings settings) {
+        this.settings = settings;
+        courses = new CourseWaitlist[settings.courses()];
+        droppable = newQueues(settings.courses());
+        for (int c = 0; c < courses.length; c++) {
+            CourseWaitlist course = new CourseWaitlist(new ConcurrentCourse("C" + c, "Course " + c, settings.capacity()));
+            Queue<Student> enrolled = droppable[c];
+            course.getCourse().addListener(new CourseListener() {
+                @Override
+                public void onStudentAdded(Course added, Student student) {
+                    enrolled.add(student);
+                }
+            });
+            courses[c] = course;
+        }
+        system = new EnrollmentSystem(List.of(new WaitlistValidator(List.of(courses))));
+        students = new Student[settings.students()];
+        for (int s = 0; s < students.length; s++) {
+            students[s] = new Student("S" + s, "Student " + s, "s" + s + "@university.edu", "Computer Science");
+        }
+        popularity = new ZipfDistribution(settings.courses(), settings.zipfExponent());
+        windows = new Window[(int) Math.ceil(settings.seconds() / settings.windowSeconds()) + 1];
+        for (int w = 0; w < windows.length; w++) {
+            windows[w] = new Window();
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Queue<Student>[] newQueues(int n) {
+        Queue<Student>[] queues = new Queue[n];
+        for (int i = 0; i < n; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        return queues;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Settings settings;
+        try {
+            settings = Settings.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: RegistrationDayLoad [key=value ...] with keys " + String.join(", ", Settings.KEYS));
+            System.exit(2);
+            return;
+        }
+        System.out.println(settings);
+        new RegistrationDayLoad(settings).run();
+    }
+
+    void run() throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(settings.workers());
+        SplittableRandom random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        long end = start + settings.seconds() * 1_000_000_000L;
+        double total = settings.enrollShare() + settings.waitlistShare() + settings.dropShare();
+
+        // Poisson arrivals at the current rate. Everything already due is handed out in one go,
+        // so the dispatcher keeps up with rates well above what parking can resolve
+        long next = start;
+        while (next < end) {
+            long now = System.nanoTime();
+            if (next > now) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            while (next <= now && next < end) {
+                double roll = random.nextDouble() * total;
+                Operation op = roll < settings.enrollShare() ? Operation.ENROLL
+                        : roll < settings.enrollShare() + settings.waitlistShare() ? Operation.WAITLIST : Operation.DROP;
+                int course = popularity.sample(random);
+                int student = random.nextInt(students.length);
+                long scheduled = next;
+                workers.execute(() -> execute(op, course, student, scheduled, start));
+                double rate = settings.rateAt((next - start) / 1e9);
+                next += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.MINUTES);
+        report(start);
+    }
+
+    private void execute(Operation op, int courseIndex, int studentIndex, long scheduled, long start) {
+        Window window = windows[(int) Math.min(windows.length - 1,
+                (scheduled - start) / (long) (settings.windowSeconds() * 1e9))];
+        CourseWaitlist course = courses[courseIndex];
+        Student student = students[studentIndex];
+        boolean accepted;
+        switch (op) {
+            // The system's WaitlistValidator keeps a plain enroll off seats someone queued for
+            case ENROLL -> accepted = system.enrollStudent(student, course.getCourse());
+            case WAITLIST -> {
+                WaitlistStatus status = course.enrollOrWaitlist(student);
+                accepted = status == WaitlistStatus.ENROLLED || status == WaitlistStatus.WAITLISTED;
+                if (status == WaitlistStatus.WAITLISTED) {
+                    window.waitlisted.increment();
+                }
+            }
+            default -> {
+                // The sampled course loses its longest-enrolled student; the sampled student is
+                // not used, as a random student is almost never enrolled in a given course.
+                // Dropping through the waitlist hands the seat to whoever is queued
+                Student enrolled = droppable[courseIndex].poll();
+                accepted = enrolled != null && course.drop(enrolled);
+            }
+        }
+        window.latency.record(System.nanoTime() - scheduled);
+        window.issued[op.ordinal()].increment();
+        if (!accepted) {
+            window.rejected[op.ordinal()].increment();
+        }
+    }
+
+    private void report(long start) {
+        System.out.printf("%8s %9s %9s %9s %10s %10s %11s %9s %10s %9s%n", "window", "ops", "ops/s", "p50 us",
+                "p99 us", "p999 us", "enroll rej", "wait rej", "waitlisted", "drop rej");
+        long totalOps = 0;
+        for (int w = 0; w < windows.length; w++) {
+            Window window = windows[w];
+            long ops = window.latency.count();
+            if (ops == 0) {
+                continue;
+            }
+            totalOps += ops;
+            double from = w * settings.windowSeconds();
+            System.out.printf("%7.1fs %9d %9.0f %9.1f %10.1f %10.1f %10.1f%% %8.1f%% %10d %8.1f%%%n", from, ops,
+                    ops / settings.windowSeconds(), window.latency.percentile(50) / 1e3,
+                    window.latency.percentile(99) / 1e3, window.latency.percentile(99.9) / 1e3,
+                    window.rejectedPercent(Operation.ENROLL), window.rejectedPercent(Operation.WAITLIST),
+                    window.waitlisted.sum(), window.rejectedPercent(Operation.DROP));
+        }
+
+        List<Integer> hottest = new ArrayList<>();
+        for (int c = 0; c < Math.min(5, courses.length); c++) {
+            hottest.add(courses[c].waitlistSize());
+        }
+        long seatsTaken = 0;
+        for (CourseWaitlist course : courses) {
+            seatsTaken += course.getCourse().getSeatsTaken();
+        }
+        System.out.printf("total %d ops in %.1f s; %d of %d seats taken; waitlists of the 5 most popular courses %s%n",
+                totalOps, (System.nanoTime() - start) / 1e9, seatsTaken,
+                (long) settings.courses() * settings.capacity(), hottest);
+    }
+}
@@ -0,0 +1,287 @@
+// Meeting-time conflict detection
+// Every student's meetings are kept as a sorted interval array over the minutes of the week,
+// so checking a new course against a schedule is a binary search instead of an all-pairs scan
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One weekly session, [startMinute, endMinute) counted from midnight
+record MeetingTime(DayOfWeek day, int startMinute, int endMinute) {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    MeetingTime {
+        if (startMinute < 0 || endMinute > MINUTES_PER_DAY || startMinute >= endMinute) {
+            throw new IllegalArgumentException("Invalid meeting time: " + startMinute + "-" + endMinute);
+        }
+    }
+
+    public static MeetingTime of(DayOfWeek day, int startHour, int startMinute, int endHour, int endMinute) {
+        return new MeetingTime(day, startHour * 60 + startMinute, endHour * 60 + endMinute);
+    }
+
+    int weekStart() {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + startMinute;
+    }
+
+    int weekEnd() {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + endMinute;
+    }
+
+    public boolean overlaps(MeetingTime other) {
+        return day == other.day && startMinute < other.endMinute && other.startMinute < endMinute;
+    }
+}
+
+record ScheduleConflict(Student student, Course first, Course second) {}
+
+// A student's meetings sorted by start. maxEnd[i] is the latest end among entries 0..i, so
+// "does [s, e) overlap anything" is: find the last entry starting before e, compare its maxEnd to s.
+// That stays correct even if the schedule already holds overlapping courses
+class StudentSchedule {
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int[] maxEnd = new int[4];
+    private Course[] owners = new Course[4];
+    private int size;
+    // Enrollments per course; plain Course allows the same student twice, and the meetings
+    // must stay until the last of those enrollments is dropped
+    private final Map<Course, Integer> enrollments = new IdentityHashMap<>();
+
+    public boolean overlaps(MeetingTime meeting) {
+        int i = lastStartingBefore(meeting.weekEnd());
+        return i >= 0 && maxEnd[i] > meeting.weekStart();
+    }
+
+    public boolean overlapsAny(Course course) {
+        for (MeetingTime meeting : course.getMeetingTimes()) {
+            if (overlaps(meeting)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(Course course) {
+        return enrollments.containsKey(course);
+    }
+
+    void enroll(Course course) {
+        if (enrollments.merge(course, 1, Integer::sum) == 1) {
+            add(course, course.getMeetingTimes());
+        }
+    }
+
+    void drop(Course course) {
+        Integer remaining = enrollments.computeIfPresent(course, (c, n) -> n == 1 ? null : n - 1);
+        if (remaining == null) {
+            remove(course);
+        }
+    }
+
+    void replaceMeetings(Course course, List<MeetingTime> meetings) {
+        if (contains(course)) {
+            remove(course);
+            add(course, meetings);
+        }
+    }
+
+    private void add(Course course, List<MeetingTime> meetings) {
+        if (meetings.isEmpty()) {
+            return;
+        }
+        int first = size;
+        for (MeetingTime meeting : meetings) {
+            if (size == starts.length) {
+                grow();
+            }
+            int at = lastStartingBefore(meeting.weekStart() + 1) + 1;
+            System.arraycopy(starts, at, starts, at + 1, size - at);
+            System.arraycopy(ends, at, ends, at + 1, size - at);
+            System.arraycopy(owners, at, owners, at + 1, size - at);
+            starts[at] = meeting.weekStart();
+            ends[at] = meeting.weekEnd();
+            owners[at] = course;
+            size++;
+            first = Math.min(first, at);
+        }
+        recomputeMaxEnd(first);
+    }
+
+    private void remove(Course course) {
+        int kept = 0;
+        int first = size;
+        for (int i = 0; i < size; i++) {
+            if (owners[i] == course) {
+                first = Math.min(first, kept);
+                continue;
+            }
+            starts[kept] = starts[i];
+            ends[kept] = ends[i];
+            owners[kept] = owners[i];
+            kept++;
+        }
+        Arrays.fill(owners, kept, size, null);
+        size = kept;
+        recomputeMaxEnd(first);
+    }
+
+    boolean isEmpty() {
+        return enrollments.isEmpty();
+    }
+
+    private int lastStartingBefore(int minute) {
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < minute) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private void recomputeMaxEnd(int from) {
+        for (int i = from; i < size; i++) {
+            maxEnd[i] = i == 0 ? ends[i] : Math.max(maxEnd[i - 1], ends[i]);
+        }
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        maxEnd = Arrays.copyOf(maxEnd, capacity);
+        owners = Arrays.copyOf(owners, capacity);
+    }
+}
+
+// Keeps one StudentSchedule per enrolled student, following tracked courses through CourseListener.
+// Locking is per student: a schedule changes inside its map entry and under its own monitor, and a
+// check holds only that monitor, so enrollments of different students never wait on each other
+class ScheduleIndex implements CourseListener {
+    private final Map<Student, StudentSchedule> schedules = new ConcurrentHashMap<>();
+    private final Map<Course, Boolean> tracked = new IdentityHashMap<>();
+
+    public void trackAll(Collection<? extends Course> catalog) {
+        catalog.forEach(this::track);
+    }
+
+    public synchronized void track(Course course) {
+        if (tracked.putIfAbsent(course, Boolean.TRUE) != null) {
+            return;
+        }
+        for (Student student : course.getEnrolledStudents()) {
+            onStudentAdded(course, student);
+        }
+        course.addListener(this);
+    }
+
+    // O(m log n) for a course with m meetings against a schedule of n meetings.
+    // A course the student already takes is not a conflict with itself
+    public boolean conflicts(Student student, Course course) {
+        StudentSchedule schedule = schedules.get(student);
+        if (schedule == null) {
+            return false;
+        }
+        synchronized (schedule) {
+            return !schedule.contains(course) && schedule.overlapsAny(course);
+        }
+    }
+
+    @Override
+    public void onStudentAdded(Course course, Student student) {
+        schedules.compute(student, (s, schedule) -> {
+            StudentSchedule updated = schedule == null ? new StudentSchedule() : schedule;
+            synchronized (updated) {
+                updated.enroll(course);
+            }
+            return updated;
+        });
+    }
+
+    // An emptied schedule leaves the map in the same step, so it is never revived by a later add
+    @Override
+    public void onStudentRemoved(Course course, Student student) {
+        schedules.computeIfPresent(student, (s, schedule) -> {
+            synchronized (schedule) {
+                schedule.drop(course);
+                return schedule.isEmpty() ? null : schedule;
+            }
+        });
+    }
+
+    @Override
+    public void onMeetingTimesChanged(Course course, List<MeetingTime> previous, List<MeetingTime> current) {
+        for (Student student : course.getEnrolledStudents()) {
+            schedules.computeIfPresent(student, (s, schedule) -> {
+                synchronized (schedule) {
+                    schedule.replaceMeetings(course, current);
+                }
+                return schedule;
+            });
+        }
+    }
+
+    // Bulk scan over the whole catalog: gathers each student's meetings from the rosters, then
+    // one sweep per student in start order reports every pair of their courses that overlaps
+    public static List<ScheduleConflict> findAllConflicts(Collection<? extends Course> catalog) {
+        Map<Student, List<Session>> sessions = new IdentityHashMap<>();
+        for (Course course : catalog) {
+            for (Student student : course.getEnrolledStudents()) {
+                List<Session> own = sessions.computeIfAbsent(student, s -> new ArrayList<>());
+                for (MeetingTime meeting : course.getMeetingTimes()) {
+                    own.add(new Session(meeting.weekStart(), meeting.weekEnd(), course));
+                }
+            }
+        }
+
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        sessions.forEach((student, own) -> {
+            own.sort(Comparator.comparingInt(Session::start));
+            List<Session> active = new ArrayList<>();
+            Map<Course, Map<Course, Boolean>> reported = new IdentityHashMap<>();
+            for (Session session : own) {
+                active.removeIf(open -> open.end() <= session.start());
+                for (Session open : active) {
+                    if (open.course() != session.course()
+                            && reported.computeIfAbsent(open.course(), c -> new IdentityHashMap<>())
+                                    .putIfAbsent(session.course(), Boolean.TRUE) == null
+                            && !reported.getOrDefault(session.course(), Map.of()).containsKey(open.course())) {
+                        conflicts.add(new ScheduleConflict(student, open.course(), session.course()));
+                    }
+                }
+                active.add(session);
+            }
+        });
+        return conflicts;
+    }
+
+    private record Session(int start, int end, Course course) {}
+}
+
+// Only race-free when run through EnrollmentSystem.enrollStudent, which holds the student's
+// monitor from this check until the seat is claimed
+class TimeConflictValidator implements EnrollmentValidator {
+    private final ScheduleIndex index;
+
+    public TimeConflictValidator(ScheduleIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public boolean validateEnrollment(Student student, Course course) {
+        return !index.conflicts(student, course);
+    }
+}
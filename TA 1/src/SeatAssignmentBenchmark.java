@@ -0,0 +1,50 @@
+// Benchmark for SeatAssignmentSolver
+// Assigns students with skewed ranked preferences and checks that no course is over capacity
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SeatAssignmentBenchmark {
+    public static void main(String[] args) {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int choices = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int capacity = (studentCount + courseCount - 1) / courseCount;
+
+        List<CourseRecord> courses = new ArrayList<>(courseCount);
+        for (int c = 0; c < courseCount; c++) {
+            courses.add(new CourseRecord("C" + c, "Course " + c, "P" + (c % 100), List.of(), capacity));
+        }
+        // Popularity is skewed toward low course numbers, so the popular courses are oversubscribed
+        Random random = new Random(42);
+        List<SeatPreferences> preferences = new ArrayList<>(studentCount);
+        for (int s = 0; s < studentCount; s++) {
+            List<String> ranked = new ArrayList<>(choices);
+            for (int k = 0; k < choices; k++) {
+                ranked.add("C" + (int) (courseCount * Math.pow(random.nextDouble(), 2)));
+            }
+            StudentRecord student = new StudentRecord("S" + s, "Student " + s, "s" + s + "@university.edu",
+                    "Computer Science", List.of());
+            preferences.add(new SeatPreferences(student, ranked));
+        }
+
+        SeatAssignmentSolver solver = new SeatAssignmentSolver();
+        for (int run = 1; run <= 3; run++) {
+            long begin = System.nanoTime();
+            SeatAssignmentResult result = solver.assign(courses, preferences);
+            long millis = (System.nanoTime() - begin) / 1_000_000;
+
+            long overbooked = result.courses().stream()
+                    .filter(course -> course.enrolledStudentIds().size() > course.maxCapacity())
+                    .count();
+            long firstChoice = preferences.stream()
+                    .filter(p -> p.rankedCourseIds().get(0).equals(result.courseByStudent().get(p.student().id())))
+                    .count();
+            System.out.printf("run %d: %d students, %d courses in %d ms; assigned %d, unassigned %d, "
+                            + "first choice %.1f%%, overbooked courses %d%n",
+                    run, studentCount, courseCount, millis, result.courseByStudent().size(),
+                    result.unassigned().size(), 100.0 * firstChoice / studentCount, overbooked);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+// Bulk seat assignment from ranked course preferences
+// Student-proposing deferred acceptance: every student ends up in the best course they can get
+// without any course preferring an applicant it turned away. Rounds run in parallel across courses
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+record SeatPreferences(StudentRecord student, List<String> rankedCourseIds) {}
+record SeatAssignmentResult(List<CourseRecord> courses, Map<String, String> courseByStudent,
+                            List<StudentRecord> unassigned) {}
+
+// How a course orders the students who apply to it; the lower rank wins the seat
+interface SeatPriority {
+    int rank(StudentRecord student, CourseRecord course);
+
+    // One lottery shared by every course, so ties are broken the same way everywhere
+    static SeatPriority lottery(long seed) {
+        return (student, course) -> {
+            long h = (student.id().hashCode() + seed) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        };
+    }
+}
+
+class SeatAssignmentSolver {
+    private static final long[] NONE = new long[0];
+
+    private final SeatPriority priority;
+
+    public SeatAssignmentSolver() {
+        this(SeatPriority.lottery(0));
+    }
+
+    public SeatAssignmentSolver(SeatPriority priority) {
+        this.priority = priority;
+    }
+
+    // Seats already taken in a course count against its capacity, and a student is never
+    // placed in a course they are already enrolled in. Each student gets at most one seat
+    public SeatAssignmentResult assign(List<CourseRecord> courses, List<SeatPreferences> preferences) {
+        CourseRecord[] catalog = courses.toArray(new CourseRecord[0]);
+        Map<String, Integer> courseIndex = new HashMap<>(catalog.length * 4 / 3 + 1);
+        int[] seatsLeft = new int[catalog.length];
+        for (int c = 0; c < catalog.length; c++) {
+            courseIndex.put(catalog[c].courseId(), c);
+            seatsLeft[c] = Math.max(0, catalog[c].maxCapacity() - catalog[c].enrolledStudentIds().size());
+        }
+
+        int studentCount = preferences.size();
+        StudentRecord[] students = new StudentRecord[studentCount];
+        int[][] ranked = new int[studentCount][];
+        IntStream.range(0, studentCount).parallel().forEach(s -> {
+            students[s] = preferences.get(s).student();
+            ranked[s] = resolve(preferences.get(s), courseIndex);
+        });
+
+        long[][] held = new long[catalog.length][];
+        Arrays.fill(held, NONE);
+        propose(catalog, students, ranked, seatsLeft, held);
+        return collect(catalog, students, held);
+    }
+
+    // Runs rounds until nobody is free: free students apply to their next choice, then every
+    // course that got applications keeps its best applicants up to capacity and rejects the rest
+    private void propose(CourseRecord[] catalog, StudentRecord[] students, int[][] ranked, int[] seatsLeft,
+                         long[][] held) {
+        int[] nextChoice = new int[students.length];
+        int[] free = IntStream.range(0, students.length).toArray();
+        int freeCount = free.length;
+        int[] applicants = new int[students.length];
+        int[] start = new int[catalog.length + 1];
+        int[] rejectedCount = new int[catalog.length];
+
+        while (freeCount > 0) {
+            // Counting sort of this round's applications by course; students out of choices drop out
+            Arrays.fill(start, 0);
+            int applying = 0;
+            for (int i = 0; i < freeCount; i++) {
+                int s = free[i];
+                if (nextChoice[s] < ranked[s].length) {
+                    start[ranked[s][nextChoice[s]] + 1]++;
+                    free[applying++] = s;
+                }
+            }
+            int[] active = IntStream.range(0, catalog.length).filter(c -> start[c + 1] > 0).toArray();
+            for (int c = 0; c < catalog.length; c++) {
+                start[c + 1] += start[c];
+            }
+            int[] fill = Arrays.copyOf(start, catalog.length);
+            for (int i = 0; i < applying; i++) {
+                int s = free[i];
+                applicants[fill[ranked[s][nextChoice[s]++]]++] = s;
+            }
+
+            // Courses are independent within a round. A course rejects at most as many students
+            // as applied to it this round, so rejections are written back over its own applicant slots
+            IntStream.of(active).parallel().forEach(c -> {
+                int from = start[c];
+                int count = start[c + 1] - from;
+                long[] keys = Arrays.copyOf(held[c], held[c].length + count);
+                for (int i = 0; i < count; i++) {
+                    int s = applicants[from + i];
+                    keys[held[c].length + i] = ((long) priority.rank(students[s], catalog[c]) << 32) + s;
+                }
+                Arrays.sort(keys);
+                int keep = Math.min(seatsLeft[c], keys.length);
+                held[c] = Arrays.copyOf(keys, keep);
+                for (int i = keep; i < keys.length; i++) {
+                    applicants[from + i - keep] = (int) keys[i];
+                }
+                rejectedCount[c] = keys.length - keep;
+            });
+
+            freeCount = 0;
+            for (int c : active) {
+                System.arraycopy(applicants, start[c], free, freeCount, rejectedCount[c]);
+                freeCount += rejectedCount[c];
+            }
+        }
+    }
+
+    private static SeatAssignmentResult collect(CourseRecord[] catalog, StudentRecord[] students, long[][] held) {
+        List<CourseRecord> updated = IntStream.range(0, catalog.length).parallel().mapToObj(c -> {
+            CourseRecord course = catalog[c];
+            if (held[c].length == 0) {
+                return course;
+            }
+            List<String> enrolled = new ArrayList<>(course.enrolledStudentIds().size() + held[c].length);
+            enrolled.addAll(course.enrolledStudentIds());
+            for (long key : held[c]) {
+                enrolled.add(students[(int) key].id());
+            }
+            return new CourseRecord(course.courseId(), course.name(), course.professorId(), enrolled,
+                    course.maxCapacity());
+        }).toList();
+
+        boolean[] placed = new boolean[students.length];
+        Map<String, String> courseByStudent = new HashMap<>(students.length * 4 / 3 + 1);
+        for (int c = 0; c < catalog.length; c++) {
+            for (long key : held[c]) {
+                placed[(int) key] = true;
+                courseByStudent.put(students[(int) key].id(), catalog[c].courseId());
+            }
+        }
+        List<StudentRecord> unassigned = new ArrayList<>();
+        for (int s = 0; s < students.length; s++) {
+            if (!placed[s]) {
+                unassigned.add(students[s]);
+            }
+        }
+        return new SeatAssignmentResult(updated, courseByStudent, unassigned);
+    }
+
+    // Unknown courses, repeats and courses the student already takes drop out of the ranking
+    private static int[] resolve(SeatPreferences preferences, Map<String, Integer> courseIndex) {
+        List<String> ids = preferences.rankedCourseIds();
+        List<String> current = preferences.student().enrolledCourseIds();
+        int[] ranked = new int[ids.size()];
+        int length = 0;
+        for (String id : ids) {
+            Integer c = courseIndex.get(id);
+            if (c == null || current.contains(id) || contains(ranked, length, c)) {
+                continue;
+            }
+            ranked[length++] = c;
+        }
+        return length == ranked.length ? ranked : Arrays.copyOf(ranked, length);
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,308 @@
+// Expiring seat holds on a hashed timing wheel
+// A hold claims a real seat in a ConcurrentCourse for a limited time; the student confirms it
+// or the wheel gives the seat back. Adding and cancelling a hold are O(1), and one ticker
+// expires a whole wheel slot at a time instead of running one scheduled task per hold
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+enum SeatHoldStatus {
+    HELD, CONFIRMED, CANCELLED, EXPIRED
+}
+
+class SeatHold {
+    private static final AtomicReferenceFieldUpdater<SeatHold, SeatHoldStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(SeatHold.class, SeatHoldStatus.class, "status");
+
+    private final Student student;
+    private final ConcurrentCourse course;
+    private final long deadlineTick;
+    private volatile SeatHoldStatus status = SeatHoldStatus.HELD;
+    // Wheel slot links, guarded by the slot's lock; prev == null means not linked
+    private SeatHold prev;
+    private SeatHold next;
+    private long rounds;
+    private volatile Slot slot;
+
+    SeatHold(Student student, ConcurrentCourse course, long deadlineTick) {
+        this.student = student;
+        this.course = course;
+        this.deadlineTick = deadlineTick;
+    }
+
+    public Student getStudent() {
+        return student;
+    }
+
+    public ConcurrentCourse getCourse() {
+        return course;
+    }
+
+    public SeatHoldStatus getStatus() {
+        return status;
+    }
+
+    // Exactly one of confirm, cancel and expire wins a hold
+    boolean settle(SeatHoldStatus outcome) {
+        return STATUS.compareAndSet(this, SeatHoldStatus.HELD, outcome);
+    }
+
+    // One slot of the wheel: a circular doubly-linked list behind a sentinel, with its own lock
+    static final class Slot {
+        private final SeatHold head = new SeatHold(null, null, 0);
+
+        Slot() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void link(SeatHold hold) {
+            hold.slot = this;
+            hold.prev = head.prev;
+            hold.next = head;
+            head.prev.next = hold;
+            head.prev = hold;
+        }
+
+        void unlink(SeatHold hold) {
+            if (hold.prev != null) {
+                hold.prev.next = hold.next;
+                hold.next.prev = hold.prev;
+                hold.prev = null;
+                hold.next = null;
+            }
+        }
+
+        // Unlinks every hold due on this pass and counts down the rest by one revolution
+        void expireInto(List<SeatHold> due) {
+            SeatHold hold = head.next;
+            while (hold != head) {
+                SeatHold next = hold.next;
+                if (hold.rounds == 0) {
+                    unlink(hold);
+                    due.add(hold);
+                } else {
+                    hold.rounds--;
+                }
+                hold = next;
+            }
+        }
+    }
+
+    long deadlineTick() {
+        return deadlineTick;
+    }
+
+    void setRounds(long rounds) {
+        this.rounds = rounds;
+    }
+
+    Slot slot() {
+        return slot;
+    }
+}
+
+class SeatHoldManager implements AutoCloseable {
+    // Student and course compare by identity, like everywhere else in the engine
+    private record HoldKey(Student student, ConcurrentCourse course) { }
+
+    private final long tickNanos;
+    private final SeatHold.Slot[] wheel;
+    private final int mask;
+    private final LongSupplier clock;
+    private final long startNanos;
+    private final Consumer<List<SeatHold>> onExpired;
+    private final Consumer<RuntimeException> onTickFailure;
+    private final AtomicInteger activeHolds = new AtomicInteger();
+    // At most one live hold per student and course
+    private final ConcurrentMap<HoldKey, SeatHold> heldBy = new ConcurrentHashMap<>();
+    private final LongAdder tickFailures = new LongAdder();
+    // The next tick to be processed; only advanced while holding that tick's slot lock
+    private volatile long currentTick;
+    private ScheduledExecutorService ticker;
+
+    public SeatHoldManager(Duration tick, int wheelSize) {
+        this(tick, wheelSize, System::nanoTime, expired -> { });
+    }
+
+    // The clock is injectable so expiry can be driven by advance() instead of a ticker thread
+    public SeatHoldManager(Duration tick, int wheelSize, LongSupplier clock, Consumer<List<SeatHold>> onExpired) {
+        this(tick, wheelSize, clock, onExpired, failure -> { });
+    }
+
+    // onTickFailure sees whatever the background ticker caught; tickFailures() counts them either way
+    public SeatHoldManager(Duration tick, int wheelSize, LongSupplier clock, Consumer<List<SeatHold>> onExpired,
+                           Consumer<RuntimeException> onTickFailure) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickNanos = tick.toNanos();
+        this.wheel = new SeatHold.Slot[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new SeatHold.Slot();
+        }
+        this.mask = size - 1;
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+        this.onExpired = onExpired;
+        this.onTickFailure = onTickFailure;
+    }
+
+    // Claims a seat now and keeps it for at most ttl. Empty if the course is full, the student
+    // is already enrolled or the student already holds a seat in this course
+    public Optional<SeatHold> hold(ConcurrentCourse course, Student student, Duration ttl) {
+        if (course.isEnrolled(student)) {
+            return Optional.empty();
+        }
+        // Round up, so a hold may expire up to one tick late but never early
+        long due = clock.getAsLong() + ttl.toNanos() - startNanos;
+        SeatHold hold = new SeatHold(student, course, Math.floorDiv(due + tickNanos - 1, tickNanos));
+        // Reserve the (student, course) pair before the seat, so a duplicate never touches the count
+        HoldKey key = new HoldKey(student, course);
+        if (heldBy.putIfAbsent(key, hold) != null) {
+            return Optional.empty();
+        }
+        if (!course.tryClaimSeat()) {
+            heldBy.remove(key, hold);
+            return Optional.empty();
+        }
+        activeHolds.incrementAndGet();
+        schedule(hold);
+        return Optional.of(hold);
+    }
+
+    // Turns the held seat into an enrollment. False if the hold already ended
+    // or the student got enrolled some other way meanwhile
+    public boolean confirm(SeatHold hold) {
+        if (!hold.settle(SeatHoldStatus.CONFIRMED)) {
+            return false;
+        }
+        unschedule(hold);
+        return hold.getStudent().enrollInClaimedSeat(hold.getCourse());
+    }
+
+    public boolean cancel(SeatHold hold) {
+        if (!hold.settle(SeatHoldStatus.CANCELLED)) {
+            return false;
+        }
+        unschedule(hold);
+        hold.getCourse().releaseSeat();
+        return true;
+    }
+
+    // Processes every tick that has passed on the clock and returns how many holds expired.
+    // Seats go back one batch per course, then onExpired sees the whole batch
+    public synchronized int advance() {
+        long lastTick = Math.floorDiv(clock.getAsLong() - startNanos, tickNanos);
+        List<SeatHold> due = new ArrayList<>();
+        while (currentTick <= lastTick) {
+            SeatHold.Slot slot = wheel[(int) (currentTick & mask)];
+            synchronized (slot) {
+                slot.expireInto(due);
+                currentTick++;
+            }
+        }
+
+        List<SeatHold> expired = new ArrayList<>(due.size());
+        Map<ConcurrentCourse, Integer> seatsByCourse = new IdentityHashMap<>();
+        for (SeatHold hold : due) {
+            if (hold.settle(SeatHoldStatus.EXPIRED)) {
+                release(hold);
+                expired.add(hold);
+                seatsByCourse.merge(hold.getCourse(), 1, Integer::sum);
+            }
+        }
+        seatsByCourse.forEach(ConcurrentCourse::releaseSeats);
+        activeHolds.addAndGet(-expired.size());
+        if (!expired.isEmpty()) {
+            onExpired.accept(expired);
+        }
+        return expired.size();
+    }
+
+    // One background task for the whole wheel, however many holds are live
+    public synchronized void start() {
+        if (ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "seat-hold-wheel");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // A periodic task that throws is never run again, so one failing onExpired callback would
+    // stop expiry for good. The batch it failed on is already settled and its seats released
+    private void tick() {
+        try {
+            advance();
+        } catch (RuntimeException e) {
+            tickFailures.increment();
+            try {
+                onTickFailure.accept(e);
+            } catch (RuntimeException ignored) {
+                // The handler gets no second chance; the failure is already counted
+            }
+        }
+    }
+
+    public long tickFailures() {
+        return tickFailures.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    public int activeHolds() {
+        return activeHolds.get();
+    }
+
+    // The slot depends on the current tick, which may move while we wait for the slot lock,
+    // so re-check under the lock. A hold that is already due goes into the next slot to run
+    private void schedule(SeatHold hold) {
+        while (true) {
+            long tick = Math.max(hold.deadlineTick(), currentTick);
+            SeatHold.Slot slot = wheel[(int) (tick & mask)];
+            synchronized (slot) {
+                long now = currentTick;
+                if (Math.max(hold.deadlineTick(), now) == tick) {
+                    hold.setRounds((tick - now) / wheel.length);
+                    slot.link(hold);
+                    return;
+                }
+            }
+        }
+    }
+
+    // Frees the (student, course) pair for a new hold once this one has settled
+    private void release(SeatHold hold) {
+        heldBy.remove(new HoldKey(hold.getStudent(), hold.getCourse()), hold);
+    }
+
+    private void unschedule(SeatHold hold) {
+        SeatHold.Slot slot = hold.slot();
+        release(hold);
+        activeHolds.decrementAndGet();
+        synchronized (slot) {
+            slot.unlink(hold);
+        }
+    }
+}
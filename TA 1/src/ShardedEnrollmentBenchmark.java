@@ -0,0 +1,81 @@
+// Scaling run for ShardedEnrollmentEngine
+// Same spread-out workload against 1, 2, 4, ... shards, reporting enrollments per second
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class ShardedEnrollmentBenchmark {
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        // Optional first argument overrides the largest shard count to try
+        int maxShards = args.length > 0 ? Integer.parseInt(args[0]) : cores;
+        int courseCount = 2_000;
+        int requestsPerProducer = 200_000;
+        int producers = Math.max(2, cores / 2);
+
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            students.add(new Student("S" + i, "Student " + i, "s" + i + "@university.edu", "Computer Science"));
+        }
+
+        double baseline = 0;
+        for (int shards = 1; shards <= maxShards; shards *= 2) {
+            double throughput = run(shards, producers, courseCount, requestsPerProducer, students);
+            if (shards == 1) {
+                baseline = throughput;
+            }
+            System.out.printf("%d shard(s): %.0f enrollments/sec (%.2fx)%n", shards, throughput, throughput / baseline);
+        }
+    }
+
+    private static double run(int shardCount, int producers, int courseCount, int requestsPerProducer,
+                              List<Student> students) throws Exception {
+        try (ShardedEnrollmentEngine engine = new ShardedEnrollmentEngine(shardCount, 8192, List.of())) {
+            List<CompletableFuture<Void>> setup = new ArrayList<>();
+            for (int c = 0; c < courseCount; c++) {
+                setup.add(engine.addCourse(new Course("C" + c, "Course " + c, Integer.MAX_VALUE)));
+            }
+            CompletableFuture.allOf(setup.toArray(new CompletableFuture<?>[0])).join();
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    CompletableFuture<Boolean> last = null;
+                    for (int i = 0; i < requestsPerProducer; i++) {
+                        int n = producer * requestsPerProducer + i;
+                        last = engine.enrollStudent(students.get(n % students.size()), "C" + (n % courseCount));
+                    }
+                    if (last != null) {
+                        last.join();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            // Every shard's queue is FIFO, so one request per shard flushes everything before it
+            List<CompletableFuture<Integer>> flush = new ArrayList<>();
+            for (int c = 0; c < Math.min(courseCount, shardCount * 8); c++) {
+                flush.add(engine.query("C" + c, course -> course.getEnrolledStudents().size()));
+            }
+            CompletableFuture.allOf(flush.toArray(new CompletableFuture<?>[0])).join();
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            return producers * (double) requestsPerProducer / seconds;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+// Shard-per-core enrollment engine
+// Courses are partitioned by courseId hash; each partition is owned by one worker thread,
+// so course state is never shared and needs no locks
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+class ShardedEnrollmentEngine implements AutoCloseable {
+    private static final int DRAIN_BATCH = 256;
+
+    private final Shard[] shards;
+
+    public ShardedEnrollmentEngine(int shardCount, int queueCapacity, List<EnrollmentValidator> validators) {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, queueCapacity, new EnrollmentSystem(validators));
+            shards[i].thread.start();
+        }
+    }
+
+    public ShardedEnrollmentEngine(int shardCount) {
+        this(shardCount, 4096, List.of(new PrerequisiteValidator()));
+    }
+
+    // Hands the course over to its owning shard; it must not be touched directly afterwards
+    public CompletableFuture<Void> addCourse(Course course) {
+        return submit(course.getCourseId(), (courses, system) -> {
+            courses.put(course.getCourseId(), course);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> enrollStudent(Student student, String courseId) {
+        return submit(courseId, (courses, system) -> {
+            Course course = courses.get(courseId);
+            return course != null && system.enrollStudent(student, course);
+        });
+    }
+
+    public CompletableFuture<Boolean> dropStudent(Student student, String courseId) {
+        return submit(courseId, (courses, system) -> {
+            Course course = courses.get(courseId);
+            return course != null && student.dropCourse(course);
+        });
+    }
+
+    // Runs a read on the owning shard, the only thread allowed to see the course
+    public <T> CompletableFuture<T> query(String courseId, Function<Course, T> reader) {
+        return submit(courseId, (courses, system) -> {
+            Course course = courses.get(courseId);
+            return course == null ? null : reader.apply(course);
+        });
+    }
+
+    public int shardOf(String courseId) {
+        int h = courseId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    // Every request accepted before close completes; later ones are rejected. Submitters still
+    // inside submit are waited for before the workers are told to stop, so none is left queued
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.running = false;
+        }
+        for (Shard shard : shards) {
+            while (shard.submitting.sum() > 0) {
+                Thread.onSpinWait();
+            }
+            shard.stopping = true;
+            shard.thread.interrupt();
+        }
+        boolean interrupted = false;
+        for (Shard shard : shards) {
+            while (shard.thread.isAlive()) {
+                try {
+                    shard.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Blocks the caller when the shard's queue is full, which is the engine's backpressure.
+    // The submitting count is raised before running is read and close lowers running before it
+    // reads the count, so either this call sees the engine closed or close waits for it
+    private <T> CompletableFuture<T> submit(String courseId, ShardOperation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Shard shard = shards[shardOf(courseId)];
+        shard.submitting.increment();
+        try {
+            if (!shard.running) {
+                result.completeExceptionally(new RejectedExecutionException("Engine is closed"));
+                return result;
+            }
+            shard.queue.put(new Request<>(operation, result));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        } finally {
+            shard.submitting.decrement();
+        }
+        return result;
+    }
+
+    private interface ShardOperation<T> {
+        T apply(Map<String, Course> courses, EnrollmentSystem system);
+    }
+
+    private record Request<T>(ShardOperation<T> operation, CompletableFuture<T> result) {
+        void run(Map<String, Course> courses, EnrollmentSystem system) {
+            try {
+                result.complete(operation.apply(courses, system));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Shard {
+        // Many producers, one consumer: the worker thread below
+        private final BlockingQueue<Request<?>> queue;
+        private final Map<String, Course> courses = new HashMap<>();
+        private final EnrollmentSystem system;
+        private final Thread thread;
+        private final LongAdder submitting = new LongAdder();
+        // running stops new submits; stopping, set once no submit is in flight, stops the worker
+        private volatile boolean running = true;
+        private volatile boolean stopping;
+
+        Shard(int index, int queueCapacity, EnrollmentSystem system) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.system = system;
+            this.thread = new Thread(this::runLoop, "enrollment-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        // Drains in batches so the queue lock is taken once per batch, not once per request
+        private void runLoop() {
+            List<Request<?>> batch = new ArrayList<>(DRAIN_BATCH);
+            while (!stopping || !queue.isEmpty()) {
+                if (queue.drainTo(batch, DRAIN_BATCH) == 0) {
+                    try {
+                        batch.add(queue.take());
+                    } catch (InterruptedException e) {
+                        continue; // close() interrupts us; the loop condition decides whether to stop
+                    }
+                }
+                for (Request<?> request : batch) {
+                    request.run(courses, system);
+                }
+                batch.clear();
+            }
+        }
+    }
+}
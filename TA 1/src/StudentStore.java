@@ -0,0 +1,301 @@
+// Columnar student storage
+// Struct-of-arrays layout: one column per field, majors dictionary-encoded,
+// strings optionally kept off-heap in a direct ByteBuffer
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Where the variable-length string columns live
+interface StringColumn {
+    int append(String value);
+    String get(int row);
+    void set(int row, String value);
+    // Compares without materializing the stored value where the column can
+    boolean matches(int row, String value);
+}
+
+// On-heap: a plain growable String[]
+class HeapStringColumn implements StringColumn {
+    private String[] values = new String[16];
+    private int size;
+
+    @Override
+    public int append(String value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        return size++;
+    }
+
+    @Override
+    public String get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void set(int row, String value) {
+        values[row] = value;
+    }
+
+    @Override
+    public boolean matches(int row, String value) {
+        return values[row].equals(value);
+    }
+}
+
+// Off-heap: UTF-8 bytes in a direct buffer, addressed by an int offset/length pair per row.
+// Overwrites append new bytes, so old bytes stay until the column is rebuilt.
+class OffHeapStringColumn implements StringColumn {
+    private ByteBuffer data;
+    private int[] offsets = new int[16];
+    private int[] lengths = new int[16];
+    private int size;
+
+    public OffHeapStringColumn(int initialBytes) {
+        this.data = ByteBuffer.allocateDirect(Math.max(64, initialBytes));
+    }
+
+    @Override
+    public int append(String value) {
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        write(size, value);
+        return size++;
+    }
+
+    @Override
+    public String get(int row) {
+        byte[] bytes = new byte[lengths[row]];
+        data.get(offsets[row], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void set(int row, String value) {
+        write(row, value);
+    }
+
+    // Byte-wise against the buffer, so a lookup allocates only the probe's UTF-8 bytes
+    @Override
+    public boolean matches(int row, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != lengths[row]) {
+            return false;
+        }
+        int offset = offsets[row];
+        for (int i = 0; i < bytes.length; i++) {
+            if (data.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(int row, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (data.remaining() < bytes.length) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(data.capacity() * 2, data.position() + bytes.length));
+            data.flip();
+            bigger.put(data);
+            data = bigger;
+        }
+        offsets[row] = data.position();
+        lengths[row] = bytes.length;
+        data.put(bytes);
+    }
+}
+
+class StudentStore {
+    private final StringColumn ids;
+    private final StringColumn names;
+    private final StringColumn emails;
+    private int[] majorCodes = new int[16];
+    private final List<String> majorDictionary = new ArrayList<>();
+    private final Map<String, Integer> majorCodesByName = new HashMap<>();
+    // Id lookup without a String per row: an open-addressing table of row + 1 (0 is empty),
+    // probed by the id's hash and confirmed against the id column itself
+    private int[] idHashes = new int[16];
+    private int[] idSlots = new int[32];
+    private int size;
+
+    private StudentStore(StringColumn ids, StringColumn names, StringColumn emails) {
+        this.ids = ids;
+        this.names = names;
+        this.emails = emails;
+    }
+
+    public static StudentStore onHeap() {
+        return new StudentStore(new HeapStringColumn(), new HeapStringColumn(), new HeapStringColumn());
+    }
+
+    // Roughly 16 bytes per short string column entry is a good starting guess
+    public static StudentStore offHeap(int expectedStudents) {
+        int bytes = expectedStudents * 16;
+        return new StudentStore(new OffHeapStringColumn(bytes), new OffHeapStringColumn(bytes * 2),
+                new OffHeapStringColumn(bytes * 2));
+    }
+
+    public int add(String id, String name, String email, String major) {
+        if (rowOf(id) >= 0) {
+            throw new IllegalArgumentException("Duplicate student id: " + id);
+        }
+        if (size == majorCodes.length) {
+            majorCodes = Arrays.copyOf(majorCodes, size * 2);
+            idHashes = Arrays.copyOf(idHashes, size * 2);
+        }
+        int row = ids.append(id);
+        names.append(name);
+        emails.append(email);
+        majorCodes[row] = encodeMajor(major);
+        idHashes[row] = id.hashCode();
+        size++;
+        if (size * 2 > idSlots.length) {
+            rehashIds(idSlots.length * 2);
+        } else {
+            insertId(row);
+        }
+        return row;
+    }
+
+    public int add(StudentRecord student) {
+        return add(student.id(), student.name(), student.email(), student.major());
+    }
+
+    public int add(Student student) {
+        return add(student.getId(), student.getName(), student.getEmail(), student.getMajor());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns -1 when the id is unknown
+    public int rowOf(String id) {
+        int hash = id.hashCode();
+        int mask = idSlots.length - 1;
+        for (int i = spread(hash) & mask; idSlots[i] != 0; i = (i + 1) & mask) {
+            int row = idSlots[i] - 1;
+            if (idHashes[row] == hash && ids.matches(row, id)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    public String id(int row) {
+        return ids.get(checkRow(row));
+    }
+
+    public String name(int row) {
+        return names.get(checkRow(row));
+    }
+
+    public String email(int row) {
+        return emails.get(checkRow(row));
+    }
+
+    public String major(int row) {
+        return majorDictionary.get(majorCodes[checkRow(row)]);
+    }
+
+    public int majorCode(int row) {
+        return majorCodes[checkRow(row)];
+    }
+
+    public void setName(int row, String name) {
+        names.set(checkRow(row), name);
+    }
+
+    public void setEmail(int row, String email) {
+        emails.set(checkRow(row), email);
+    }
+
+    public void setMajor(int row, String major) {
+        majorCodes[checkRow(row)] = encodeMajor(major);
+    }
+
+    // Scans one int column, no strings are touched
+    public int countByMajor(String major) {
+        Integer code = majorCodesByName.get(major);
+        if (code == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (majorCodes[i] == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Materializes a record on demand; the course list is empty because the store holds no enrollments
+    public StudentRecord view(int row) {
+        return new StudentRecord(id(row), name(row), email(row), major(row), List.of());
+    }
+
+    public StudentRecord view(String id) {
+        int row = rowOf(id);
+        return row < 0 ? null : view(row);
+    }
+
+    // A lazy List over the store so existing code can read it like any List<StudentRecord>
+    public List<StudentRecord> asRecords() {
+        return new AbstractList<>() {
+            @Override
+            public StudentRecord get(int index) {
+                return view(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int encodeMajor(String major) {
+        return majorCodesByName.computeIfAbsent(major, m -> {
+            majorDictionary.add(m);
+            return majorDictionary.size() - 1;
+        });
+    }
+
+    private void insertId(int row) {
+        int mask = idSlots.length - 1;
+        int i = spread(idHashes[row]) & mask;
+        while (idSlots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        idSlots[i] = row + 1;
+    }
+
+    // Rows never leave and ids never change, so growing is the only time slots move
+    private void rehashIds(int capacity) {
+        idSlots = new int[capacity];
+        for (int row = 0; row < size; row++) {
+            insertId(row);
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return row;
+    }
+}
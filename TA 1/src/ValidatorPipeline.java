@@ -0,0 +1,200 @@
+// Adaptive validator pipeline
+// Runs the validators that reject most cheaply first, memoizes student-scoped checks and keeps latency stats
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// A validator whose answer for a student and course id only changes when studentVersion does,
+// e.g. prerequisites: the pipeline caches answers and drops them once the version moves on
+interface StudentScopedValidator extends EnrollmentValidator {
+    long studentVersion(Student student);
+}
+
+// Log2-bucketed latency histogram, safe to record from many threads
+class LatencyHistogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder count = new LongAdder();
+
+    public void record(long nanos) {
+        // Bucket i holds values in [2^(i-1), 2^i)
+        buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos))));
+        count.increment();
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100)
+    public long percentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < 64; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i == 0 ? 0 : (1L << i) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
+
+record ValidatorStats(String name, long calls, long rejections, long cacheHits,
+                      double meanNanos, long p50Nanos, long p99Nanos, long p999Nanos) {}
+
+class ValidatorPipeline implements EnrollmentValidator {
+    private static final int REORDER_INTERVAL = 1024;
+
+    private final List<Stage> stages;
+    private final AtomicLong validations = new AtomicLong();
+    private volatile Stage[] order;
+
+    public ValidatorPipeline(List<EnrollmentValidator> validators) {
+        List<Stage> list = new ArrayList<>(validators.size());
+        for (EnrollmentValidator validator : validators) {
+            list.add(new Stage(validator));
+        }
+        this.stages = List.copyOf(list);
+        this.order = list.toArray(new Stage[0]);
+    }
+
+    @Override
+    public boolean validateEnrollment(Student student, Course course) {
+        try {
+            for (Stage stage : order) {
+                if (!stage.test(student, course)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            if (validations.incrementAndGet() % REORDER_INTERVAL == 0) {
+                reorder();
+            }
+        }
+    }
+
+    // One pass over the courses in the current order; student-scoped answers come from the memo
+    public Map<Course, Boolean> validateAll(Student student, List<Course> courses) {
+        Map<Course, Boolean> results = new LinkedHashMap<>();
+        Stage[] current = order;
+        for (Course course : courses) {
+            boolean valid = true;
+            for (int i = 0; valid && i < current.length; i++) {
+                valid = current[i].test(student, course);
+            }
+            results.put(course, valid);
+        }
+        validations.addAndGet(courses.size());
+        reorder();
+        return results;
+    }
+
+    public List<ValidatorStats> stats() {
+        List<ValidatorStats> stats = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            stats.add(stage.snapshot());
+        }
+        return stats;
+    }
+
+    // Current evaluation order, cheapest expected rejection first
+    public List<EnrollmentValidator> currentOrder() {
+        List<EnrollmentValidator> validators = new ArrayList<>();
+        for (Stage stage : order) {
+            validators.add(stage.validator);
+        }
+        return validators;
+    }
+
+    // Sorts by expected cost per rejection: mean latency divided by a smoothed rejection rate
+    public synchronized void reorder() {
+        Stage[] sorted = stages.toArray(new Stage[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(Stage::score));
+        order = sorted;
+    }
+
+    // A cached answer, valid only while the student's version still equals the one it was computed at
+    private record MemoEntry(Student student, String courseId, long version, boolean valid) {}
+
+    private static final class Stage {
+        // Direct-mapped, so the memo never grows: a colliding pair simply replaces the older entry
+        private static final int MEMO_SLOTS = 4096;
+
+        private final EnrollmentValidator validator;
+        private final StudentScopedValidator scoped;
+        private final AtomicReferenceArray<MemoEntry> memo;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Stage(EnrollmentValidator validator) {
+            this.validator = validator;
+            this.scoped = validator instanceof StudentScopedValidator s ? s : null;
+            this.memo = scoped != null ? new AtomicReferenceArray<>(MEMO_SLOTS) : null;
+        }
+
+        boolean test(Student student, Course course) {
+            int slot = 0;
+            long version = 0;
+            if (memo != null) {
+                // The version is read before validating, so an answer raced by a change is stored as stale
+                version = scoped.studentVersion(student);
+                slot = (System.identityHashCode(student) * 31 + course.getCourseId().hashCode()) & (MEMO_SLOTS - 1);
+                MemoEntry cached = memo.get(slot);
+                if (cached != null && cached.student() == student && cached.version() == version
+                        && cached.courseId().equals(course.getCourseId())) {
+                    cacheHits.increment();
+                    return cached.valid();
+                }
+            }
+            long start = System.nanoTime();
+            boolean valid = validator.validateEnrollment(student, course);
+            long elapsed = System.nanoTime() - start;
+
+            calls.increment();
+            totalNanos.add(elapsed);
+            latency.record(elapsed);
+            if (!valid) {
+                rejections.increment();
+            }
+            if (memo != null) {
+                memo.set(slot, new MemoEntry(student, course.getCourseId(), version, valid));
+            }
+            return valid;
+        }
+
+        double meanNanos() {
+            long n = calls.sum();
+            return n == 0 ? 0 : (double) totalNanos.sum() / n;
+        }
+
+        double score() {
+            long n = calls.sum();
+            double rejectRate = (rejections.sum() + 1.0) / (n + 2.0);
+            // Cached validators cost almost nothing once warm
+            double cost = memo != null && cacheHits.sum() > n ? 1.0 : meanNanos() + 1.0;
+            return cost / rejectRate;
+        }
+
+        ValidatorStats snapshot() {
+            return new ValidatorStats(validator.getClass().getSimpleName(), calls.sum(), rejections.sum(),
+                    cacheHits.sum(), meanNanos(), latency.percentile(50), latency.percentile(99),
+                    latency.percentile(99.9));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+// Throughput run for CourseWaitlist
+// Concurrent producers waitlist 100k students on one full course, then concurrent drops promote them
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+public class WaitlistBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int capacity = 1_000;
+        int waitlisted = 100_000;
+
+        // Everyone who holds a seat is queued for a later drop, promoted students included
+        ConcurrentLinkedQueue<Student> seated = new ConcurrentLinkedQueue<>();
+        AtomicInteger promoted = new AtomicInteger();
+        ConcurrentCourse course = new ConcurrentCourse("CS101", "Java Programming", capacity);
+        CourseWaitlist waitlist = new CourseWaitlist(course, student -> {
+            promoted.incrementAndGet();
+            seated.add(student);
+        });
+
+        for (int i = 0; i < capacity; i++) {
+            Student student = newStudent("E" + i);
+            waitlist.enrollOrWaitlist(student);
+            seated.add(student);
+        }
+
+        List<Student> waiting = new ArrayList<>(waitlisted);
+        for (int i = 0; i < waitlisted; i++) {
+            waiting.add(newStudent("W" + i));
+        }
+
+        // Phase 1: concurrent producers, every tenth student gets a better priority class
+        double waitlistSeconds = runSplit(threads, waiting, student -> {
+            int priority = student.getId().hashCode() % 10 == 0 ? 1 : CourseWaitlist.DEFAULT_PRIORITY;
+            waitlist.enrollOrWaitlist(student, priority);
+        });
+        check(waitlist.waitlistSize() == waitlisted, "every producer must end up on the waitlist");
+        check(course.getSeatsTaken() == capacity, "the course must stay exactly full");
+        System.out.printf("Waitlisted %d students with %d threads: %.0f ops/sec%n",
+                waitlisted, threads, waitlisted / waitlistSeconds);
+
+        // Phase 2: concurrent drops until the waitlist is empty, each one promotes the next student in line
+        double dropSeconds = runDrops(threads, waitlist, seated, waitlisted);
+        System.out.printf("Dropped and promoted %d students: %.0f ops/sec%n",
+                promoted.get(), promoted.get() / dropSeconds);
+
+        check(course.getSeatsTaken() == capacity, "the course must still be exactly full");
+        check(course.getEnrolledStudents().size() == capacity, "roster must match the seat counter");
+        check(waitlist.waitlistSize() == 0, "the waitlist must be drained");
+        check(promoted.get() == waitlisted, "every waitlisted student must be promoted exactly once");
+        System.out.println("Waitlist invariants hold");
+    }
+
+    // Threads claim drop slots up front, then drop whoever has held a seat the longest
+    private static double runDrops(int threads, CourseWaitlist waitlist, ConcurrentLinkedQueue<Student> seated,
+                                   int drops) throws InterruptedException {
+        AtomicInteger slots = new AtomicInteger();
+        return runOnThreads(threads, t -> {
+            while (slots.getAndIncrement() < drops) {
+                Student student;
+                while ((student = seated.poll()) == null) {
+                    Thread.onSpinWait(); // the promotion that refills the queue is still in flight
+                }
+                waitlist.drop(student);
+            }
+        });
+    }
+
+    private static double runSplit(int threads, List<Student> students, Consumer<Student> action)
+            throws InterruptedException {
+        int chunk = (students.size() + threads - 1) / threads;
+        return runOnThreads(threads, t -> students.subList(Math.min(students.size(), t * chunk),
+                Math.min(students.size(), (t + 1) * chunk)).forEach(action));
+    }
+
+    // Starts all threads together and returns the wall-clock seconds until the last one finishes
+    private static double runOnThreads(int threads, IntConsumer task) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.accept(thread);
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.MINUTES);
+        return (System.nanoTime() - begin) / 1e9;
+    }
+
+    private static Student newStudent(String id) {
+        return new Student(id, "Student " + id, id + "@university.edu", "Computer Science");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException("Waitlist check failed: " + message);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// Department and professor workload aggregates
+// Kept up to date from CourseListener events in O(1), read through versioned snapshots.
+// Courses hash to a fixed set of lock stripes: an enrollment event takes its stripe's read lock
+// and bumps striped counters, so the ConcurrentCourse CAS path is never serialized across courses,
+// while a snapshot takes every stripe's write lock for a consistent cut
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+record WorkloadTotals(int courses, long enrolledStudents) {}
+
+// An immutable, mutually consistent view of every aggregate at one version
+record WorkloadSnapshot(long version, Map<String, WorkloadTotals> byDepartment,
+                        Map<String, WorkloadTotals> byProfessor) {
+    public WorkloadTotals department(String department) {
+        return byDepartment.getOrDefault(department, new WorkloadTotals(0, 0));
+    }
+
+    public WorkloadTotals professor(String professorId) {
+        return byProfessor.getOrDefault(professorId, new WorkloadTotals(0, 0));
+    }
+}
+
+class WorkloadAggregator implements CourseListener {
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 4 - 1)) << 1;
+
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+    private final Map<String, Tally> byDepartment = new ConcurrentHashMap<>();
+    private final Map<String, Tally> byProfessor = new ConcurrentHashMap<>();
+    // What each tracked course currently contributes, so updates never rescan a roster
+    private final Map<Course, CourseTally> courses = new ConcurrentHashMap<>();
+    // Counts changes rather than holding a version number, so writers never contend on one field.
+    // Bumped under a stripe lock, so a snapshot holding every stripe reads an exact version
+    private final LongAdder changes = new LongAdder();
+    private volatile WorkloadSnapshot snapshot = new WorkloadSnapshot(0, Map.of(), Map.of());
+
+    WorkloadAggregator() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    public void trackAll(Collection<? extends Course> catalog) {
+        catalog.forEach(this::track);
+    }
+
+    // Track courses before they take enrollments from other threads, or the initial count may race.
+    // Structural changes (track, professor moves) share the aggregator lock; they are rare
+    public synchronized void track(Course course) {
+        if (courses.containsKey(course)) {
+            return;
+        }
+        StampedLock stripe = stripeOf(course);
+        long stamp = stripe.writeLock();
+        try {
+            CourseTally tally = new CourseTally(course.getEnrolledStudents().size());
+            attach(tally, course.getProfessor());
+            courses.put(course, tally);
+            changes.increment();
+        } finally {
+            stripe.unlockWrite(stamp);
+        }
+        course.addListener(this);
+    }
+
+    @Override
+    public void onStudentAdded(Course course, Student student) {
+        adjust(course, 1);
+    }
+
+    @Override
+    public void onStudentRemoved(Course course, Student student) {
+        adjust(course, -1);
+    }
+
+    // Moves the course's whole contribution from the old professor to the new one. The stripe's
+    // write lock keeps the course's enrollments from landing on either side mid-move
+    @Override
+    public synchronized void onProfessorAssigned(Course course, Professor previous, Professor current) {
+        CourseTally tally = courses.get(course);
+        if (tally == null) {
+            return;
+        }
+        StampedLock stripe = stripeOf(course);
+        long stamp = stripe.writeLock();
+        try {
+            detach(tally);
+            attach(tally, current);
+            changes.increment();
+        } finally {
+            stripe.unlockWrite(stamp);
+        }
+    }
+
+    // Rebuilt only when something changed since the last read, so polling an idle system is free.
+    // A rebuild holds every stripe's write lock while it copies, so all totals come from one instant
+    public WorkloadSnapshot snapshot() {
+        WorkloadSnapshot current = snapshot;
+        if (current.version() == changes.sum()) {
+            return current;
+        }
+        synchronized (this) {
+            long[] stamps = new long[stripes.length];
+            for (int i = 0; i < stripes.length; i++) {
+                stamps[i] = stripes[i].writeLock();
+            }
+            try {
+                long version = changes.sum();
+                if (snapshot.version() != version) {
+                    snapshot = new WorkloadSnapshot(version, freeze(byDepartment), freeze(byProfessor));
+                }
+                return snapshot;
+            } finally {
+                for (int i = 0; i < stripes.length; i++) {
+                    stripes[i].unlockWrite(stamps[i]);
+                }
+            }
+        }
+    }
+
+    public WorkloadTotals departmentLoad(String department) {
+        return snapshot().department(department);
+    }
+
+    public WorkloadTotals professorLoad(String professorId) {
+        return snapshot().professor(professorId);
+    }
+
+    private void adjust(Course course, int delta) {
+        CourseTally tally = courses.get(course);
+        if (tally == null) {
+            return;
+        }
+        StampedLock stripe = stripeOf(course);
+        long stamp = stripe.readLock();
+        try {
+            tally.enrolled.addAndGet(delta);
+            if (tally.professor != null) {
+                tally.professor.enrolled.add(delta);
+            }
+            if (tally.department != null) {
+                tally.department.enrolled.add(delta);
+            }
+            changes.increment();
+        } finally {
+            stripe.unlockRead(stamp);
+        }
+    }
+
+    private StampedLock stripeOf(Course course) {
+        int h = System.identityHashCode(course);
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    // Callers hold the aggregator lock and the course's stripe write lock
+    private void attach(CourseTally tally, Professor professor) {
+        tally.professor = professor == null ? null : byProfessor.computeIfAbsent(professor.getId(), k -> new Tally());
+        tally.department = professor == null ? null : byDepartment.computeIfAbsent(professor.getDepartment(), k -> new Tally());
+        tally.move(1, tally.enrolled.get());
+    }
+
+    private void detach(CourseTally tally) {
+        tally.move(-1, -tally.enrolled.get());
+        tally.professor = null;
+        tally.department = null;
+    }
+
+    private static Map<String, WorkloadTotals> freeze(Map<String, Tally> tallies) {
+        Map<String, WorkloadTotals> copy = new HashMap<>(tallies.size() * 4 / 3 + 1);
+        tallies.forEach((key, tally) -> copy.put(key, new WorkloadTotals(tally.courses, tally.enrolled.sum())));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    // Course counts only change under the aggregator lock; enrollments are striped
+    private static final class Tally {
+        private volatile int courses;
+        private final LongAdder enrolled = new LongAdder();
+    }
+
+    // professor and department change only under the stripe's write lock, so readers of the
+    // stripe see them stable; the count is atomic because a stripe's readers run in parallel
+    private static final class CourseTally {
+        private Tally professor;
+        private Tally department;
+        private final AtomicInteger enrolled;
+
+        CourseTally(int enrolled) {
+            this.enrolled = new AtomicInteger(enrolled);
+        }
+
+        void move(int courseDelta, long enrolledDelta) {
+            for (Tally tally : new Tally[]{professor, department}) {
+                if (tally != null) {
+                    tally.courses += courseDelta;
+                    tally.enrolled.add(enrolledDelta);
+                }
+            }
+        }
+    }
+}
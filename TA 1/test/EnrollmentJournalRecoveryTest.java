@@ -0,0 +1,164 @@
+// Recovery checks for EnrollmentJournal and JournaledEnrollmentSystem
+// Plain main-method test, no framework: compile together with ../src and run, it throws on the first failure
+//
+//   javac -d out "TA 1/src"/*.java "TA 1/test"/*.java && java -cp out EnrollmentJournalRecoveryTest
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class EnrollmentJournalRecoveryTest {
+    public static void main(String[] args) throws IOException {
+        dropOfSeededStudentSurvivesRestart();
+        dropSurvivesCheckpoint();
+        dropReplaysIntoCourses();
+        reenrollAfterDropWins();
+        failedEnrollIsRolledBack();
+        failedDropLeavesEnrollment();
+        clusterNodeKeepsDropOfSeededStudent();
+        System.out.println("EnrollmentJournalRecoveryTest: ok");
+    }
+
+    // Base roster [S1, S2], journal DROP S1 + ENROLL S3, restart: [S2, S3]
+    static void dropOfSeededStudentSurvivesRestart() throws IOException {
+        withDirectory(dir -> {
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                journal.appendAndSync(JournalEventType.DROP, "S1", "C1");
+                journal.appendAndSync(JournalEventType.ENROLL, "S3", "C1");
+            }
+            check(recoveredRoster(dir).equals(List.of("S2", "S3")), "restart lost the drop: " + recoveredRoster(dir));
+        });
+    }
+
+    static void dropSurvivesCheckpoint() throws IOException {
+        withDirectory(dir -> {
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                journal.appendAndSync(JournalEventType.DROP, "S1", "C1");
+                journal.appendAndSync(JournalEventType.ENROLL, "S3", "C1");
+                journal.checkpoint();
+            }
+            check(recoveredRoster(dir).equals(List.of("S2", "S3")), "checkpoint lost the drop: " + recoveredRoster(dir));
+        });
+    }
+
+    static void dropReplaysIntoCourses() throws IOException {
+        withDirectory(dir -> {
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                journal.appendAndSync(JournalEventType.DROP, "S1", "C1");
+            }
+            Course course = new Course("C1", "Course 1", 10);
+            Student s1 = new Student("S1", "One", "s1@university.edu", "CS");
+            Student s2 = new Student("S2", "Two", "s2@university.edu", "CS");
+            s1.enrollInCourse(course);
+            s2.enrollInCourse(course);
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                journal.replay(new CourseReplayTarget(Map.of("C1", course), Map.of("S1", s1, "S2", s2), Map.of()));
+            }
+            check(course.getEnrolledStudents().equals(List.of(s2)), "course kept the dropped student");
+            check(s1.getEnrolledCourses().isEmpty(), "student kept the dropped course");
+        });
+    }
+
+    static void reenrollAfterDropWins() throws IOException {
+        withDirectory(dir -> {
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                journal.appendAndSync(JournalEventType.DROP, "S1", "C1");
+                journal.appendAndSync(JournalEventType.ENROLL, "S1", "C1");
+                journal.checkpoint();
+            }
+            check(recoveredRoster(dir).equals(List.of("S1", "S2")), "re-enrollment lost: " + recoveredRoster(dir));
+        });
+    }
+
+    // Ids over 65535 bytes make the append throw, standing in for an I/O failure
+    static void failedEnrollIsRolledBack() throws IOException {
+        withDirectory(dir -> {
+            Course course = new Course("C1", "Course 1", 10);
+            Student student = new Student("S".repeat(70_000), "Long", "l@university.edu", "CS");
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                JournaledEnrollmentSystem system = new JournaledEnrollmentSystem(new EnrollmentSystem(List.of()), journal);
+                try {
+                    system.enrollStudent(student, course);
+                    check(false, "enrollment with an unloggable id succeeded");
+                } catch (IllegalArgumentException expected) {
+                    // rolled back below
+                }
+            }
+            check(course.getEnrolledStudents().isEmpty(), "course kept an enrollment the journal never took");
+            check(student.getEnrolledCourses().isEmpty(), "student kept an enrollment the journal never took");
+        });
+    }
+
+    static void failedDropLeavesEnrollment() throws IOException {
+        withDirectory(dir -> {
+            Course course = new Course("C1", "Course 1", 10);
+            Student student = new Student("S".repeat(70_000), "Long", "l@university.edu", "CS");
+            student.enrollInCourse(course);
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+                JournaledEnrollmentSystem system = new JournaledEnrollmentSystem(new EnrollmentSystem(List.of()), journal);
+                try {
+                    system.dropStudent(student, course);
+                    check(false, "drop with an unloggable id succeeded");
+                } catch (IllegalArgumentException expected) {
+                    // nothing was applied
+                }
+            }
+            check(course.getEnrolledStudents().equals(List.of(student)), "drop was applied without being logged");
+        });
+    }
+
+    // The node seeds C1 with [S1, S2] from its catalog, then replays DROP S1 (checkpointed) and ENROLL S3
+    static void clusterNodeKeepsDropOfSeededStudent() throws IOException {
+        withDirectory(dir -> {
+            Path catalog = dir.resolve("catalog.snap");
+            EnrollmentSnapshot.write(catalog, List.of(new CourseRecord("C1", "Course 1", "", List.of("S1", "S2"), 10)),
+                    List.of());
+            try (EnrollmentJournal journal = EnrollmentJournal.open(dir.resolve("partition-0"), 1000)) {
+                journal.appendAndSync(JournalEventType.DROP, "S1", "C1");
+                journal.checkpoint();
+                journal.appendAndSync(JournalEventType.ENROLL, "S3", "C1");
+            }
+            try (EnrollmentClusterNode node = new EnrollmentClusterNode(0, 1, catalog, dir)) {
+                List<String> roster = node.course("C1").getEnrolledStudents().stream().map(Student::getId).toList();
+                check(roster.equals(List.of("S2", "S3")), "node lost the drop: " + roster);
+            }
+        });
+    }
+
+    // Reopens the journal and replays it over a base record whose roster is [S1, S2]
+    private static List<String> recoveredRoster(Path dir) throws IOException {
+        CourseRecordReplayTarget target = new CourseRecordReplayTarget(
+                List.of(new CourseRecord("C1", "Course 1", "P1", List.of("S1", "S2"), 10)));
+        try (EnrollmentJournal journal = EnrollmentJournal.open(dir, 1000)) {
+            journal.replay(target);
+        }
+        return List.copyOf(target.courses().get(0).enrolledStudentIds());
+    }
+
+    private interface JournalCase {
+        void run(Path dir) throws IOException;
+    }
+
+    private static void withDirectory(JournalCase test) throws IOException {
+        Path dir = Files.createTempDirectory("journal-test");
+        try {
+            test.run(dir);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
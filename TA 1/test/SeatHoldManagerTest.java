@@ -0,0 +1,227 @@
+// Hold, confirm, cancel and expiry checks for SeatHoldManager, driven by an injected clock
+// Plain main-method test, no framework: compile together with ../src and run, it throws on the first failure
+//
+//   javac -d out "TA 1/src"/*.java "TA 1/test"/*.java && java -cp out SeatHoldManagerTest
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SeatHoldManagerTest {
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    public static void main(String[] args) throws InterruptedException {
+        holdClaimsSeatAndConfirmEnrolls();
+        cancelReleasesSeat();
+        secondHoldForSameCourseIsRejected();
+        holdExpiresAfterTtlNotBefore();
+        holdLongerThanWheelExpiresOnTime();
+        settledHoldCannotChangeOutcome();
+        manyHoldsSettleExactlyOnce();
+        failingCallbackDoesNotStopTicker();
+        System.out.println("SeatHoldManagerTest: ok");
+    }
+
+    static void holdClaimsSeatAndConfirmEnrolls() {
+        AtomicLong clock = new AtomicLong();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 64, clock::get, expired -> { });
+        ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 1);
+        Student first = student("S1");
+
+        SeatHold hold = holds.hold(course, first, Duration.ofSeconds(1)).orElseThrow();
+        check(course.getSeatsTaken() == 1, "hold did not claim a seat");
+        check(holds.hold(course, student("S2"), Duration.ofSeconds(1)).isEmpty(), "held seat was given out twice");
+
+        check(holds.confirm(hold), "confirm failed");
+        check(hold.getStatus() == SeatHoldStatus.CONFIRMED, "status " + hold.getStatus());
+        check(course.isEnrolled(first) && first.isEnrolledIn(course), "confirm did not enroll");
+        check(holds.activeHolds() == 0, "confirmed hold still active");
+        check(holds.hold(course, first, Duration.ofSeconds(1)).isEmpty(), "enrolled student got a hold");
+
+        clock.set(Duration.ofSeconds(2).toNanos());
+        check(holds.advance() == 0, "confirmed hold expired");
+        check(course.getSeatsTaken() == 1 && course.isEnrolled(first), "expiry touched a confirmed seat");
+    }
+
+    static void cancelReleasesSeat() {
+        AtomicLong clock = new AtomicLong();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 64, clock::get, expired -> { });
+        ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 1);
+
+        SeatHold hold = holds.hold(course, student("S1"), Duration.ofSeconds(1)).orElseThrow();
+        check(holds.cancel(hold), "cancel failed");
+        check(hold.getStatus() == SeatHoldStatus.CANCELLED, "status " + hold.getStatus());
+        check(course.getSeatsTaken() == 0, "cancel kept the seat");
+        check(holds.activeHolds() == 0, "cancelled hold still active");
+        check(holds.hold(course, student("S2"), Duration.ofSeconds(1)).isPresent(), "released seat not reusable");
+    }
+
+    static void secondHoldForSameCourseIsRejected() {
+        AtomicLong clock = new AtomicLong();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 64, clock::get, expired -> { });
+        ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 5);
+        ConcurrentCourse other = new ConcurrentCourse("C2", "Course 2", 5);
+        Student first = student("S1");
+
+        SeatHold hold = holds.hold(course, first, Duration.ofSeconds(1)).orElseThrow();
+        check(holds.hold(course, first, Duration.ofSeconds(1)).isEmpty(), "second hold on the same course");
+        check(course.getSeatsTaken() == 1, "rejected hold claimed a seat, seats taken " + course.getSeatsTaken());
+        check(holds.hold(other, first, Duration.ofSeconds(1)).isPresent(), "hold on another course rejected");
+
+        holds.cancel(hold);
+        SeatHold again = holds.hold(course, first, Duration.ofSeconds(1)).orElseThrow();
+        clock.set(Duration.ofSeconds(2).toNanos());
+        holds.advance();
+        check(again.getStatus() == SeatHoldStatus.EXPIRED, "status " + again.getStatus());
+        check(holds.hold(course, first, Duration.ofSeconds(1)).isPresent(), "expired hold still blocks the student");
+    }
+
+    static void holdExpiresAfterTtlNotBefore() {
+        AtomicLong clock = new AtomicLong();
+        List<SeatHold> seen = new ArrayList<>();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 64, clock::get, seen::addAll);
+        ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 5);
+
+        SeatHold hold = holds.hold(course, student("S1"), Duration.ofMillis(35)).orElseThrow();
+        clock.set(Duration.ofMillis(30).toNanos());
+        check(holds.advance() == 0, "hold expired before its ttl");
+        check(hold.getStatus() == SeatHoldStatus.HELD, "status " + hold.getStatus());
+
+        clock.set(Duration.ofMillis(40).toNanos());
+        check(holds.advance() == 1, "hold did not expire");
+        check(hold.getStatus() == SeatHoldStatus.EXPIRED, "status " + hold.getStatus());
+        check(seen.equals(List.of(hold)), "callback saw " + seen.size() + " holds");
+        check(course.getSeatsTaken() == 0, "expiry kept the seat");
+        check(holds.activeHolds() == 0, "expired hold still active");
+    }
+
+    // 100 ticks on an 8-slot wheel: the hold passes its slot 12 times before it is due
+    static void holdLongerThanWheelExpiresOnTime() {
+        AtomicLong clock = new AtomicLong();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 8, clock::get, expired -> { });
+        ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 5);
+
+        SeatHold hold = holds.hold(course, student("S1"), TICK.multipliedBy(100)).orElseThrow();
+        for (int tick = 1; tick < 100; tick++) {
+            clock.set(TICK.multipliedBy(tick).toNanos());
+            check(holds.advance() == 0, "hold expired at tick " + tick);
+        }
+        clock.set(TICK.multipliedBy(100).toNanos());
+        check(holds.advance() == 1, "hold did not expire at tick 100");
+        check(hold.getStatus() == SeatHoldStatus.EXPIRED, "status " + hold.getStatus());
+    }
+
+    static void settledHoldCannotChangeOutcome() {
+        AtomicLong clock = new AtomicLong();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 64, clock::get, expired -> { });
+        ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 5);
+
+        SeatHold expired = holds.hold(course, student("S1"), TICK).orElseThrow();
+        clock.set(TICK.multipliedBy(2).toNanos());
+        holds.advance();
+        check(!holds.confirm(expired) && !holds.cancel(expired), "expired hold was settled again");
+        check(!course.isEnrolled(expired.getStudent()), "expired hold enrolled");
+
+        SeatHold cancelled = holds.hold(course, student("S2"), TICK).orElseThrow();
+        holds.cancel(cancelled);
+        check(!holds.confirm(cancelled) && !holds.cancel(cancelled), "cancelled hold was settled again");
+        check(course.getSeatsTaken() == 0, "seats taken " + course.getSeatsTaken());
+    }
+
+    // Random ttls across courses; a third confirmed, a third cancelled, the rest left to expire.
+    // Every hold must end in exactly one state and every seat must be accounted for
+    static void manyHoldsSettleExactlyOnce() {
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger expiredSeen = new AtomicInteger();
+        SeatHoldManager holds = new SeatHoldManager(TICK, 256, clock::get, batch -> expiredSeen.addAndGet(batch.size()));
+        List<ConcurrentCourse> courses = new ArrayList<>();
+        for (int c = 0; c < 100; c++) {
+            courses.add(new ConcurrentCourse("C" + c, "Course " + c, 1_000));
+        }
+        Random random = new Random(42);
+        List<SeatHold> all = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            Optional<SeatHold> hold = holds.hold(courses.get(i % courses.size()), student("S" + i),
+                    TICK.multipliedBy(1 + random.nextInt(2_000)));
+            all.add(hold.orElseThrow());
+        }
+
+        int confirmed = 0;
+        int cancelled = 0;
+        for (int i = 0; i < all.size(); i++) {
+            clock.set(TICK.multipliedBy(i / 100).toNanos());
+            holds.advance();
+            SeatHold hold = all.get(i);
+            if (i % 3 == 0 && holds.confirm(hold)) {
+                confirmed++;
+            } else if (i % 3 == 1 && holds.cancel(hold)) {
+                cancelled++;
+            }
+        }
+        clock.set(TICK.multipliedBy(2_001).toNanos());
+        holds.advance();
+
+        int expired = 0;
+        for (SeatHold hold : all) {
+            check(hold.getStatus() != SeatHoldStatus.HELD, "hold left unsettled");
+            if (hold.getStatus() == SeatHoldStatus.EXPIRED) {
+                expired++;
+            }
+        }
+        check(confirmed + cancelled + expired == all.size(), "holds settled more than once");
+        check(expiredSeen.get() == expired, "callback saw " + expiredSeen.get() + " of " + expired);
+        check(holds.activeHolds() == 0, "active holds " + holds.activeHolds());
+        int seats = courses.stream().mapToInt(ConcurrentCourse::getSeatsTaken).sum();
+        check(seats == confirmed, "seats taken " + seats + ", confirmed " + confirmed);
+    }
+
+    // The first expiry callback throws; the ticker must report it and keep expiring holds afterwards
+    static void failingCallbackDoesNotStopTicker() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger calls = new AtomicInteger();
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        try (SeatHoldManager holds = new SeatHoldManager(Duration.ofMillis(1), 64, clock::get, expired -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("callback failure");
+            }
+        }, failures::add)) {
+            ConcurrentCourse course = new ConcurrentCourse("C1", "Course 1", 5);
+            SeatHold first = holds.hold(course, student("S1"), Duration.ofMillis(1)).orElseThrow();
+            holds.start();
+            clock.set(Duration.ofMillis(2).toNanos());
+            awaitStatus(first, SeatHoldStatus.EXPIRED);
+
+            SeatHold second = holds.hold(course, student("S2"), Duration.ofMillis(1)).orElseThrow();
+            clock.set(Duration.ofMillis(4).toNanos());
+            awaitStatus(second, SeatHoldStatus.EXPIRED);
+            check(calls.get() == 2, "callback calls " + calls.get());
+            check(holds.tickFailures() == 1, "tick failures " + holds.tickFailures());
+            check(failures.size() == 1 && failures.get(0).getMessage().equals("callback failure"),
+                    "failure handler saw " + failures);
+            check(course.getSeatsTaken() == 0, "seats taken " + course.getSeatsTaken());
+        }
+    }
+
+    private static void awaitStatus(SeatHold hold, SeatHoldStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (hold.getStatus() != status) {
+            check(System.nanoTime() < deadline, "ticker never reached " + status + ", status " + hold.getStatus());
+            Thread.sleep(1);
+        }
+    }
+
+    private static Student student(String id) {
+        return new Student(id, "Student " + id, id.toLowerCase() + "@university.edu", "CS");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}